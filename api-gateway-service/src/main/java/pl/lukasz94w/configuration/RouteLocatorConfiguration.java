@@ -23,7 +23,7 @@ public class RouteLocatorConfiguration {
                         .uri("lb:ws://game-server-core")
                 )
                 .route(p -> p
-                        .path("/api/v1/history/findGamesForUser")
+                        .path("/api/v1/history/findGamesForUser", "/api/v1/history/stats", "/api/v1/history/leaderboard", "/api/v1/history/games/*/moves")
                         .filters(f -> f.filter(authenticationFilter.apply(new Object())))
                         .uri("lb://history-service")
                 )
@@ -0,0 +1,54 @@
+package pl.lukasz94w.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pl.lukasz94w.tictactoe.Board;
+import pl.lukasz94w.tictactoe.BoardVariant;
+import pl.lukasz94w.tictactoe.Tictactoe;
+import pl.lukasz94w.tictactoe.TictactoeFactory;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole game played on the fresh board: every move is followed by the check of the game end, as in GameServer.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"TICTACTOE", "GOMOKU"})
+    public BoardVariant boardVariant;
+
+    private String[] squareValues;
+
+    private String[] squareNumbers;
+
+    @Setup
+    public void setUp() {
+        // first player wins with the last move, on the diagonal of the board
+        int columns = boardVariant.getColumns();
+        int movesToWin = boardVariant.getWinningLength();
+        squareValues = new String[movesToWin * 2 - 1];
+        squareNumbers = new String[movesToWin * 2 - 1];
+        for (int i = 0; i < movesToWin; i++) {
+            squareValues[i * 2] = "X";
+            squareNumbers[i * 2] = String.valueOf(i * columns + i);
+            if (i < movesToWin - 1) {
+                squareValues[i * 2 + 1] = "O";
+                squareNumbers[i * 2 + 1] = String.valueOf(i * columns + i + 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public Tictactoe.Result playGame() {
+        Board board = TictactoeFactory.createBoard(boardVariant);
+        Tictactoe.Result result = Tictactoe.Result.ONGOING;
+        for (int i = 0; i < squareNumbers.length; i++) {
+            board.updateState(squareNumbers[i], squareValues[i]);
+            result = board.checkWhetherGameEnded();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,53 @@
+package pl.lukasz94w.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import pl.lukasz94w.dto.http.request.FinishedGameData;
+
+import java.io.ByteArrayOutputStream;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Serialization of the finished game, done by the history outbox for every game of the batch.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FinishedGameDataBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private FinishedGameData finishedGameData;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ZonedDateTime gameEndedUTC = ZonedDateTime.now(ZoneId.of("Europe/London"));
+        finishedGameData = new FinishedGameData("firstPlayer", "secondPlayer", "firstPlayer", gameEndedUTC.minusMinutes(3), gameEndedUTC, 3, packMoves(new int[]{4, 0, 8, 2, 6, 1, 7, 3, 5}));
+    }
+
+    @Benchmark
+    public String serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(finishedGameData);
+    }
+
+    // same format as MoveLog (which can't be filled outside of the game), moves made every 1.5 s
+    private static byte[] packMoves(int[] squareNumbers) {
+        ByteArrayOutputStream encodedMoves = new ByteArrayOutputStream();
+        for (int i = 0; i < squareNumbers.length; i++) {
+            encodedMoves.write(squareNumbers[i]);
+            long value = 1500L << 1 | (i % 2);
+            while ((value & ~0x7FL) != 0) {
+                encodedMoves.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            encodedMoves.write((int) value);
+        }
+        return encodedMoves.toByteArray();
+    }
+}
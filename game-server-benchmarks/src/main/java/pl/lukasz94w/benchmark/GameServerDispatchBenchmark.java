@@ -0,0 +1,149 @@
+package pl.lukasz94w.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import pl.lukasz94w.GameServer;
+import pl.lukasz94w.codec.BinaryMessageCodec;
+import pl.lukasz94w.codec.JsonMessageCodec;
+import pl.lukasz94w.admission.AdmissionController;
+import pl.lukasz94w.configuration.AdmissionControlConfig;
+import pl.lukasz94w.configuration.HistoryOutboxConfig;
+import pl.lukasz94w.configuration.JournalConfig;
+import pl.lukasz94w.configuration.OutboundQueueConfig;
+import pl.lukasz94w.configuration.WebSocketServerConfig;
+import pl.lukasz94w.eventloop.EventLoopGroup;
+import pl.lukasz94w.game.GameRegistry;
+import pl.lukasz94w.history.FinishedGamesOutbox;
+import pl.lukasz94w.journal.GameJournal;
+import pl.lukasz94w.journal.RecoveredGames;
+import pl.lukasz94w.matchmaking.Matchmaker;
+import pl.lukasz94w.metrics.GameServerMetrics;
+import pl.lukasz94w.scheduler.HashedTimingWheel;
+import pl.lukasz94w.session.OutboundQueues;
+import pl.lukasz94w.session.OverflowPolicy;
+import pl.lukasz94w.session.RejectedSessionsReaper;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Round trip of the heartbeat of a paired player: decoding on the calling thread, hand-off to the event loop of the
+// game and the confirmation sent back to the (stubbed) session through its outbound queue.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameServerDispatchBenchmark {
+
+    @Param({JsonMessageCodec.SUBPROTOCOL, BinaryMessageCodec.SUBPROTOCOL})
+    public String protocol;
+
+    private GameServer gameServer;
+
+    private FinishedGamesOutbox finishedGamesOutbox;
+
+    private EventLoopGroup eventLoopGroup;
+
+    private HashedTimingWheel timingWheel;
+
+    private OutboundQueues outboundQueues;
+
+    private GameJournal gameJournal;
+
+    private StubWebSocketSession firstPlayerSession;
+
+    private TextMessage textHeartbeat;
+
+    private BinaryMessage binaryHeartbeat;
+
+    @Setup
+    public void setUp() throws Exception {
+        WebSocketServerConfig webSocketServerConfig = new WebSocketServerConfig();
+        webSocketServerConfig.requiredHeartbeatFrequency = 600000;
+        webSocketServerConfig.resumeGracePeriod = 0L;
+        webSocketServerConfig.resumeBufferSize = 64;
+
+        AdmissionControlConfig admissionControlConfig = new AdmissionControlConfig();
+        admissionControlConfig.minLimit = 250;
+        admissionControlConfig.initialLimit = 250;
+        admissionControlConfig.maxLimit = 250;
+        admissionControlConfig.adjustmentInterval = 1000L;
+        admissionControlConfig.maxEventLoopLatency = Long.MAX_VALUE;
+        admissionControlConfig.maxEventLoopBacklog = Integer.MAX_VALUE;
+        admissionControlConfig.maxSendBacklog = Integer.MAX_VALUE;
+        admissionControlConfig.maxCpuLoad = 1.0;
+        admissionControlConfig.decreaseFactor = 1.0;
+        admissionControlConfig.handshakeBurst = 1;
+        admissionControlConfig.handshakeRefillPeriod = 1000L;
+        admissionControlConfig.retryAfter = 1L;
+
+        HistoryOutboxConfig historyOutboxConfig = new HistoryOutboxConfig();
+        historyOutboxConfig.capacity = 16;
+        historyOutboxConfig.batchSize = 16;
+        historyOutboxConfig.initialBackoff = 500L;
+        historyOutboxConfig.maxBackoff = 500L;
+        historyOutboxConfig.maxRetries = 1;
+        historyOutboxConfig.spillFile = Files.createTempDirectory("benchmark-outbox").resolve("finished-games.jsonl").toString();
+
+        OutboundQueueConfig outboundQueueConfig = new OutboundQueueConfig();
+        outboundQueueConfig.bufferSizeLimit = 65536;
+        outboundQueueConfig.sendTimeLimit = 10000L;
+        outboundQueueConfig.overflowPolicy = OverflowPolicy.DROP_CHAT;
+
+        JournalConfig journalConfig = new JournalConfig();
+        journalConfig.file = Files.createTempDirectory("benchmark-journal").resolve("games.journal").toString();
+        journalConfig.fileSize = 1 << 20;
+        journalConfig.snapshotInterval = 60000L;
+        journalConfig.recoveryTimeout = 60000L;
+
+        GameServerMetrics gameServerMetrics = new GameServerMetrics(new SimpleMeterRegistry());
+        finishedGamesOutbox = new FinishedGamesOutbox(new RestTemplate(), historyOutboxConfig, gameServerMetrics);
+        eventLoopGroup = new EventLoopGroup(1);
+        timingWheel = new HashedTimingWheel(100, 1024);
+        outboundQueues = new OutboundQueues(outboundQueueConfig, gameServerMetrics);
+        gameJournal = new GameJournal(journalConfig);
+        gameServer = new GameServer(webSocketServerConfig, new GameRegistry(), finishedGamesOutbox, new Matchmaker(1, gameServerMetrics), eventLoopGroup, timingWheel, new RejectedSessionsReaper(timingWheel, 10000),
+                new AdmissionController(admissionControlConfig, eventLoopGroup, outboundQueues, timingWheel), outboundQueues, gameServerMetrics, gameJournal, new RecoveredGames(gameJournal, journalConfig.recoveryTimeout));
+
+        firstPlayerSession = new StubWebSocketSession("1", "firstPlayer", protocol);
+        StubWebSocketSession secondPlayerSession = new StubWebSocketSession("2", "secondPlayer", protocol);
+        gameServer.afterConnectionEstablished(firstPlayerSession);
+        gameServer.afterConnectionEstablished(secondPlayerSession);
+        awaitSentMessages(firstPlayerSession, 1); // game started
+
+        textHeartbeat = new TextMessage("{\"messageType\":\"heartbeat\"}");
+        binaryHeartbeat = new BinaryMessage(new byte[]{0x03});
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventLoopGroup.shutdown();
+        timingWheel.stop();
+        outboundQueues.shutdown();
+        finishedGamesOutbox.stop();
+        gameJournal.stop();
+    }
+
+    @Benchmark
+    public long heartbeatRoundTrip() {
+        long sentMessages = firstPlayerSession.getNumberOfSentMessages();
+        if (BinaryMessageCodec.SUBPROTOCOL.equals(protocol)) {
+            gameServer.handleBinaryMessage(firstPlayerSession, binaryHeartbeat);
+        } else {
+            gameServer.handleTextMessage(firstPlayerSession, textHeartbeat);
+        }
+        return awaitSentMessages(firstPlayerSession, sentMessages + 1);
+    }
+
+    private static long awaitSentMessages(StubWebSocketSession session, long expectedSentMessages) {
+        long sentMessages;
+        while ((sentMessages = session.getNumberOfSentMessages()) < expectedSentMessages) {
+            Thread.onSpinWait();
+        }
+        return sentMessages;
+    }
+}
@@ -0,0 +1,50 @@
+package pl.lukasz94w.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.javatuples.Pair;
+import org.openjdk.jmh.annotations.*;
+import pl.lukasz94w.game.GameSettings;
+import pl.lukasz94w.matchmaking.Matchmaker;
+import pl.lukasz94w.metrics.GameServerMetrics;
+import pl.lukasz94w.player.Player;
+import pl.lukasz94w.player.PlayerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Two players entering the lobby one after another and getting paired, also measured with concurrent handshakes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchmakerBenchmark {
+
+    private final AtomicLong sessionIdSequence = new AtomicLong();
+
+    private Matchmaker matchmaker;
+
+    @Setup
+    public void setUp() {
+        matchmaker = new Matchmaker(Runtime.getRuntime().availableProcessors(), new GameServerMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public List<Pair<Player, Player>> pairPlayers() {
+        matchmaker.enqueue(createPlayer(), GameSettings.DEFAULT);
+        return matchmaker.enqueue(createPlayer(), GameSettings.DEFAULT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Pair<Player, Player>> pairPlayersConcurrently() {
+        return matchmaker.enqueue(createPlayer(), GameSettings.DEFAULT);
+    }
+
+    private Player createPlayer() {
+        String id = String.valueOf(sessionIdSequence.incrementAndGet());
+        return PlayerFactory.createPlayer(new StubWebSocketSession(id, "player" + id, null), "player" + id);
+    }
+}
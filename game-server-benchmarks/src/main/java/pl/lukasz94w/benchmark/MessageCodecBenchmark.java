@@ -0,0 +1,59 @@
+package pl.lukasz94w.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import pl.lukasz94w.codec.BinaryMessageCodec;
+import pl.lukasz94w.codec.IncomingMessage;
+import pl.lukasz94w.codec.JsonMessageCodec;
+import pl.lukasz94w.codec.MessageCodec;
+
+import java.util.concurrent.TimeUnit;
+
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.GAME_UPDATED;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.OPPONENT_MESSAGE;
+
+// Encoding of the outgoing messages (former buildTextMessage) and decoding of the game update confirmation.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({JsonMessageCodec.SUBPROTOCOL, BinaryMessageCodec.SUBPROTOCOL})
+    public String protocol;
+
+    private MessageCodec messageCodec;
+
+    private WebSocketMessage<?> gameUpdateConfirmation;
+
+    @Setup
+    public void setUp() {
+        if (BinaryMessageCodec.SUBPROTOCOL.equals(protocol)) {
+            messageCodec = new BinaryMessageCodec();
+            gameUpdateConfirmation = new BinaryMessage(new byte[]{0x04, 'X', 0x00, 0x04});
+        } else {
+            messageCodec = new JsonMessageCodec();
+            gameUpdateConfirmation = new TextMessage("{\"messageType\":\"playerReceivedGameUpdateConfirmation\",\"data\":\"X4\"}");
+        }
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> encodeGameUpdate() {
+        return messageCodec.encode(GAME_UPDATED, "X4");
+    }
+
+    @Benchmark
+    public WebSocketMessage<?> encodeOpponentMessage() {
+        return messageCodec.encode(OPPONENT_MESSAGE, "Good game, \"well played\"!");
+    }
+
+    @Benchmark
+    public String decodeGameUpdateConfirmation() {
+        IncomingMessage incomingMessage = messageCodec.decode(gameUpdateConfirmation);
+        return incomingMessage.getSquareNumber();
+    }
+}
@@ -0,0 +1,127 @@
+package pl.lukasz94w.benchmark;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Session which doesn't write anything, it only counts the messages sent by the server.
+class StubWebSocketSession implements WebSocketSession {
+
+    private final String id;
+
+    private final HttpHeaders handshakeHeaders;
+
+    private final String acceptedProtocol;
+
+    private final Map<String, Object> attributes;
+
+    private volatile boolean open;
+
+    private volatile long numberOfSentMessages;
+
+    StubWebSocketSession(String id, String userName, String acceptedProtocol) {
+        this.id = id;
+        this.acceptedProtocol = acceptedProtocol;
+        handshakeHeaders = new HttpHeaders();
+        handshakeHeaders.add("username", userName);
+        attributes = new HashMap<>();
+        open = true;
+    }
+
+    long getNumberOfSentMessages() {
+        return numberOfSentMessages;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return URI.create("ws://localhost/websocket/raw");
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return handshakeHeaders;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return acceptedProtocol;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    // single writer: sessions are written only by the event loop of their game
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        numberOfSentMessages++;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        open = false;
+    }
+}
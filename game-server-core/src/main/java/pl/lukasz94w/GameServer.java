@@ -1,88 +1,153 @@
 package pl.lukasz94w;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.json.JSONObject;
+import org.javatuples.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+import pl.lukasz94w.admission.AdmissionController;
+import pl.lukasz94w.codec.BinaryMessageCodec;
+import pl.lukasz94w.codec.IncomingMessage;
+import pl.lukasz94w.codec.JsonMessageCodec;
+import pl.lukasz94w.codec.MessageCodec;
 import pl.lukasz94w.configuration.WebSocketServerConfig;
 import pl.lukasz94w.dto.http.request.FinishedGameData;
+import pl.lukasz94w.eventloop.EventLoopGroup;
 import pl.lukasz94w.exception.GameException;
 import pl.lukasz94w.exception.GameServerAccessDeniedException;
-import pl.lukasz94w.exception.MissingParameterException;
+import pl.lukasz94w.exception.RejectionReason;
+import pl.lukasz94w.exception.TictactoeException;
 import pl.lukasz94w.game.Game;
 import pl.lukasz94w.game.GameFactory;
+import pl.lukasz94w.game.GameMode;
+import pl.lukasz94w.game.GameRegistry;
+import pl.lukasz94w.game.GameSettings;
+import pl.lukasz94w.game.Seat;
+import pl.lukasz94w.history.FinishedGamesOutbox;
+import pl.lukasz94w.journal.GameJournal;
+import pl.lukasz94w.journal.JournaledGame;
+import pl.lukasz94w.journal.RecoveredGames;
+import pl.lukasz94w.journal.RejoinedGame;
+import pl.lukasz94w.matchmaking.Matchmaker;
+import pl.lukasz94w.metrics.GameServerMetrics;
 import pl.lukasz94w.player.Player;
 import pl.lukasz94w.player.PlayerFactory;
+import pl.lukasz94w.scheduler.HashedTimingWheel;
+import pl.lukasz94w.session.OutboundQueues;
+import pl.lukasz94w.session.RejectedSessionsReaper;
+import pl.lukasz94w.tictactoe.Board;
+import pl.lukasz94w.tictactoe.BoardVariant;
 import pl.lukasz94w.tictactoe.Tictactoe;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-import static pl.lukasz94w.dto.websocket.common.JsonKey.DATA;
-import static pl.lukasz94w.dto.websocket.common.JsonKey.MESSAGE_TYPE;
 import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.*;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.*;
 import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.*;
 import static pl.lukasz94w.tictactoe.Tictactoe.Result.ONGOING;
 
-public class GameServer extends TextWebSocketHandler {
+public class GameServer extends AbstractWebSocketHandler {
 
     private final Logger logger = LoggerFactory.getLogger(GameServer.class);
 
-    private final List<Game> games;
+    private final GameRegistry gameRegistry;
 
     private final WebSocketServerConfig webSocketServerConfig;
 
-    private final RestTemplate historyServiceClient;
+    private final FinishedGamesOutbox finishedGamesOutbox;
 
-    private Player lonelyPlayer;
+    private final Matchmaker matchmaker;
 
-    public GameServer(WebSocketServerConfig webSocketServerConfig, RestTemplate historyServiceClient) {
+    private final EventLoopGroup eventLoopGroup;
+
+    private final HashedTimingWheel timingWheel;
+
+    private final RejectedSessionsReaper rejectedSessionsReaper;
+
+    private final AdmissionController admissionController;
+
+    private final OutboundQueues outboundQueues;
+
+    private final GameServerMetrics gameServerMetrics;
+
+    private final GameJournal gameJournal;
+
+    private final RecoveredGames recoveredGames;
+
+    private final MessageCodec jsonMessageCodec;
+
+    private final MessageCodec binaryMessageCodec;
+
+    public GameServer(WebSocketServerConfig webSocketServerConfig, GameRegistry gameRegistry, FinishedGamesOutbox finishedGamesOutbox, Matchmaker matchmaker, EventLoopGroup eventLoopGroup, HashedTimingWheel timingWheel, RejectedSessionsReaper rejectedSessionsReaper, AdmissionController admissionController, OutboundQueues outboundQueues, GameServerMetrics gameServerMetrics, GameJournal gameJournal, RecoveredGames recoveredGames) {
         this.webSocketServerConfig = webSocketServerConfig;
-        this.historyServiceClient = historyServiceClient;
-        games = new CopyOnWriteArrayList<>();
-        lonelyPlayer = null;
+        this.gameRegistry = gameRegistry;
+        this.finishedGamesOutbox = finishedGamesOutbox;
+        this.matchmaker = matchmaker;
+        this.eventLoopGroup = eventLoopGroup;
+        this.timingWheel = timingWheel;
+        this.rejectedSessionsReaper = rejectedSessionsReaper;
+        this.admissionController = admissionController;
+        this.outboundQueues = outboundQueues;
+        this.gameServerMetrics = gameServerMetrics;
+        this.gameJournal = gameJournal;
+        this.recoveredGames = recoveredGames;
+        jsonMessageCodec = new JsonMessageCodec();
+        binaryMessageCodec = new BinaryMessageCodec();
+
+        if (recoveredGames.getNumberOfGames() > 0) {
+            logger.info("Waiting {} ms for the players of {} recovered games", recoveredGames.getRecoveryTimeout(), recoveredGames.getNumberOfGames());
+            timingWheel.schedule(this::expireRecoveredGames, recoveredGames.getRecoveryTimeout());
+        }
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         String userName = session.getHandshakeHeaders().getFirst("username"); // coming from api-gateway-service
+        outboundQueues.register(session);
 
         try {
-            verifyMaxSessionsNumber();
-            verifyIfPLayerIsLonelyPlayer(userName);
+            verifyUserName(userName);
+            Optional<String> resumeToken = getQueryParam(session, "resumeToken");
+            if (resumeToken.isPresent()) {
+                resumeSeat(session, userName, resumeToken.get()); // no new game is started, so it's not subject to admission
+                return;
+            }
+            admissionController.admit(userName, gameRegistry.numberOfGames());
+            if (recoveredGames.isRecovered(userName)) {
+                rejoinRecoveredGame(session, userName);
+                return;
+            }
+            verifyIfPlayerIsWaitingInLobby(userName);
             verifyIfPlayerAlreadyHaveAGame(userName);
-            acceptSession(session, userName);
+            acceptSession(session, userName, getChosenGameSettings(session));
         } catch (GameServerAccessDeniedException exception) {
-            rejectSession(session, exception.getMessage());
+            rejectSession(session, exception);
         }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession disconnectingSession, CloseStatus status) {
         try {
-            if (isCallingSessionLonelyPlayerSession(disconnectingSession)) {
-                handleLonelyPlayerDisconnection();
+            outboundQueues.remove(disconnectingSession);
+            if (rejectedSessionsReaper.untrack(disconnectingSession)) {
+                logger.info("Rejected session closed: {}, session id: {}", status, disconnectingSession.getId());
+                return;
+            }
+
+            Optional<Player> waitingPlayer = matchmaker.remove(disconnectingSession).or(() -> recoveredGames.leave(disconnectingSession));
+            if (waitingPlayer.isPresent()) {
+                waitingPlayer.get().cancelHeartbeatTimeout();
             } else {
-                handleActivePlayerDisconnection(disconnectingSession);
+                gameRegistry.findSeat(disconnectingSession).ifPresent(seat -> eventLoopGroup.execute(seat.getGame().getId(), () -> handleSeatedPlayerDisconnection(seat, disconnectingSession)));
             }
             logger.info("Server connection closed: {}, session id: {}", status, disconnectingSession.getId());
         } catch (Exception e) {
@@ -90,21 +155,30 @@ public class GameServer extends TextWebSocketHandler {
         }
     }
 
+    // Messages are only parsed on the container thread. Handling of the messages related to a game is passed to the
+    // event loop owning that game, so the game state is always modified by the same thread, in the order of arrival.
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) {
-        JSONObject jsonMessage = new JSONObject(message.getPayload());
-        String messageType = validateAndGetMessageType(jsonMessage);
+        handleIncomingMessage(session, jsonMessageCodec.decode(message));
+    }
+
+    @Override
+    public void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        handleIncomingMessage(session, binaryMessageCodec.decode(message));
+    }
+
+    private void handleIncomingMessage(WebSocketSession session, IncomingMessage incomingMessage) {
+        String messageType = incomingMessage.getType();
 
         try {
-            switch (messageType) {
-                case PLAYER_MESSAGE -> forwardMessageToOpponent(session, jsonMessage);
-                case GAME_UPDATE -> forwardGameUpdateToOpponent(session, jsonMessage);
-                case HEARTBEAT -> updateLastHeartbeat(session);
-                case PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION -> updateGameStatus(session, jsonMessage);
-                default -> logger.error("Unknown type of message from session: {}", session.getId());
+            Optional<Seat> seat = gameRegistry.findSeat(session);
+            if (seat.isPresent()) {
+                eventLoopGroup.execute(seat.get().getGame().getId(), () -> handleGameMessage(seat.get(), incomingMessage));
+            } else {
+                handleLobbyMessage(session, messageType);
             }
         } catch (Exception e) {
-            logger.error("Exception in handleTextMessage: {}", ExceptionUtils.getStackTrace(e));
+            logger.error("Exception in handleIncomingMessage: {}", ExceptionUtils.getStackTrace(e));
         }
     }
 
@@ -113,223 +187,384 @@ public class GameServer extends TextWebSocketHandler {
         logger.error("Exception in handleTransportError: {}", ExceptionUtils.getStackTrace(exception));
     }
 
-    @Scheduled(fixedDelayString = "${pl.lukasz94w.inactiveSessionsCheckingFrequency}")
-    private void inactiveSessionsCleaner() {
-        long currentTimestamp = System.currentTimeMillis();
-        checkLonelyPlayerSession(currentTimestamp);
-        checkActiveGamesSessions(currentTimestamp);
+    private void handleGameMessage(Seat seat, IncomingMessage incomingMessage) {
+        String messageType = incomingMessage.getType();
+        if (!gameRegistry.isRegistered(seat.getGame())) {
+            logger.info("Message {} skipped, game of session {} has already been removed", messageType, seat.getPlayer().getSession().getId());
+            return;
+        }
+
+        long handlingStartedAt = System.nanoTime();
+        try {
+            switch (messageType) {
+                case PLAYER_MESSAGE -> forwardMessageToOpponent(seat, incomingMessage);
+                case GAME_UPDATE -> forwardGameUpdateToOpponent(seat, incomingMessage);
+                case HEARTBEAT -> updateActivePlayerLastHeartbeat(seat);
+                case PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION -> updateGameStatus(seat, incomingMessage);
+                case PLAYER_MOVE -> applyPlayerMove(seat, incomingMessage);
+                default -> logger.error("Unknown type of message from session: {}", seat.getPlayer().getSession().getId());
+            }
+        } finally {
+            gameServerMetrics.recordMessageHandling(messageType, System.nanoTime() - handlingStartedAt);
+        }
+    }
+
+    // waiting players can only keep their sessions alive, the rest of the messages requires a game
+    private void handleLobbyMessage(WebSocketSession session, String messageType) {
+        long handlingStartedAt = System.nanoTime();
+        try {
+            Player waitingPlayer = matchmaker.findWaitingPlayer(session).or(() -> recoveredGames.findWaitingPlayer(session)).orElseThrow(() -> new GameException("No related session found for session: " + session.getId()));
+            switch (messageType) {
+                case HEARTBEAT -> updateWaitingPlayerLastHeartbeat(waitingPlayer);
+                case PLAYER_MESSAGE, GAME_UPDATE, PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION, PLAYER_MOVE -> throw new GameException("No related game found for session: " + session.getId());
+                default -> logger.error("Unknown type of message from session: {}", session.getId());
+            }
+        } finally {
+            gameServerMetrics.recordMessageHandling(messageType, System.nanoTime() - handlingStartedAt);
+        }
     }
 
-    private void verifyMaxSessionsNumber() {
-        if (games.size() >= webSocketServerConfig.maxNumberOfGames) {
-            throw new GameServerAccessDeniedException("Maximum number of active sessions exceeded. Try again later");
+    // session not coming through api-gateway-service
+    private void verifyUserName(String userName) {
+        if (userName == null || userName.isBlank()) {
+            throw new GameServerAccessDeniedException(RejectionReason.MISSING_USER_NAME, "Missing user name");
         }
     }
 
-    private void verifyIfPLayerIsLonelyPlayer(String userName) {
-        if (isLonelyPlayer() && lonelyPlayer.getName().equals(userName)) {
-            throw new GameServerAccessDeniedException("Player already waiting in lobby!");
+    private void verifyIfPlayerIsWaitingInLobby(String userName) {
+        if (matchmaker.isWaiting(userName)) {
+            throw new GameServerAccessDeniedException(RejectionReason.ALREADY_WAITING, "Player already waiting in lobby!");
         }
     }
 
     private void verifyIfPlayerAlreadyHaveAGame(String userName) {
-        games.stream().flatMap(game -> Stream.of(game.getFirstPlayer().getName(), game.getSecondPlayer().getName())).filter(name -> name.equals(userName)).findFirst().ifPresent(name -> {
-            throw new GameServerAccessDeniedException("There can only be one game per player");
+        if (gameRegistry.hasGame(userName)) {
+            throw new GameServerAccessDeniedException(RejectionReason.ALREADY_IN_GAME, "There can only be one game per player");
+        }
+    }
+
+    // settings are chosen by the optional "variant" and "mode" query parameters of the handshake,
+    // relayed tictactoe by default
+    private GameSettings getChosenGameSettings(WebSocketSession session) {
+        String variantName = getQueryParam(session, "variant").orElse(null);
+        String modeName = getQueryParam(session, "mode").orElse(null);
+
+        BoardVariant boardVariant = variantName == null ? GameSettings.DEFAULT.boardVariant() :
+                BoardVariant.fromName(variantName).orElseThrow(() -> new GameServerAccessDeniedException(RejectionReason.UNKNOWN_GAME_SETTINGS, "Unknown board variant: " + variantName));
+        GameMode gameMode = modeName == null ? GameSettings.DEFAULT.gameMode() :
+                GameMode.fromName(modeName).orElseThrow(() -> new GameServerAccessDeniedException(RejectionReason.UNKNOWN_GAME_SETTINGS, "Unknown game mode: " + modeName));
+        return new GameSettings(boardVariant, gameMode);
+    }
+
+    private Optional<String> getQueryParam(WebSocketSession session, String name) {
+        if (session.getUri() == null) {
+            return Optional.empty();
+        }
+
+        MultiValueMap<String, String> queryParams = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        return Optional.ofNullable(queryParams.getFirst(name));
+    }
+
+    // duplicated players are rejected atomically by the matchmaker, the checks above only save the lobby a round trip
+    private void acceptSession(WebSocketSession session, String playerName, GameSettings gameSettings) {
+        Player player = PlayerFactory.createPlayer(session, playerName);
+        List<Pair<Player, Player>> pairedPlayers = matchmaker.enqueue(player, gameSettings);
+        armHeartbeatTimeout(player);
+        logger.info("Server connection opened, session id: {}, player name: {}, board variant: {}, game mode: {}", session.getId(), playerName, gameSettings.boardVariant(), gameSettings.gameMode());
+        pairedPlayers.forEach(players -> handlePlayersPairing(players, gameSettings));
+    }
+
+    // player of the game recovered after the restart takes back its seat, game is restored once both players are back
+    private void rejoinRecoveredGame(WebSocketSession session, String playerName) {
+        Player player = PlayerFactory.createPlayer(session, playerName);
+        Optional<RejoinedGame> rejoinedGame = recoveredGames.rejoin(player);
+        armHeartbeatTimeout(player);
+        logger.info("Server connection opened, session id: {}, player name: {} rejoined the recovered game", session.getId(), playerName);
+        rejoinedGame.ifPresent(this::restoreGame);
+    }
+
+    private void restoreGame(RejoinedGame rejoinedGame) {
+        JournaledGame journaledGame = rejoinedGame.journaledGame();
+        Player firstPlayer = rejoinedGame.firstPlayer();
+        Player secondPlayer = rejoinedGame.secondPlayer();
+
+        Game game = GameFactory.restoreGame(journaledGame.getGameId(), firstPlayer, secondPlayer, journaledGame.getGameSettings());
+        gameRegistry.register(game);
+
+        // replayed before any message of the players, they are handled by the same event loop
+        eventLoopGroup.execute(game.getId(), () -> {
+            try {
+                journaledGame.getMoves().forEach(move -> game.markSquare(move.substring(0, 1), move.substring(1)));
+                String moves = String.join(",", journaledGame.getMoves());
+                sendMessageWithResumeToken(firstPlayer, GAME_RESTORED, FIRST_PLAYER + ";" + moves);
+                sendMessageWithResumeToken(secondPlayer, GAME_RESTORED, SECOND_PLAYER + ";" + moves);
+                logger.info("Game {} restored for players: {}, {} with {} moves", game.getId(), firstPlayer.getName(), secondPlayer.getName(), journaledGame.getMoves().size());
+            } finally {
+                handlePairedSessionClosedInLobby(firstPlayer, secondPlayer);
+            }
         });
     }
 
-    private void acceptSession(WebSocketSession session, String playerName) {
+    // players whose opponents didn't come back are informed as if the opponent disconnected
+    private void expireRecoveredGames() {
+        List<Player> waitingPlayers = recoveredGames.expire();
+        logger.info("Recovery timeout passed, {} players left without the opponent", waitingPlayers.size());
+        waitingPlayers.forEach(player -> sendMessage(player.getSession(), PAIRED_SESSION_DISCONNECTED, OPPONENT_DISCONNECTED));
+    }
+
+    // Session presenting the resume token (issued in GAME_STARTED) takes over the seat of the player, whose game
+    // continues where it was left. Token is accepted only from the same player, as authenticated by api-gateway-service.
+    private void resumeSeat(WebSocketSession session, String playerName, String resumeToken) {
+        Seat seat = gameRegistry.findSeatByResumeToken(resumeToken).filter(foundSeat -> foundSeat.getPlayer().getName().equals(playerName))
+                .orElseThrow(() -> new GameServerAccessDeniedException(RejectionReason.UNKNOWN_RESUME_TOKEN, "No game to resume found"));
+        gameRegistry.bind(seat, session);
+        eventLoopGroup.execute(seat.getGame().getId(), () -> rebindPlayer(seat, session));
+    }
+
+    // Messages missed during the gap are replayed to the new session. If there were more of them than the buffer
+    // holds the game can't be resumed consistently and is ended as if the grace period passed.
+    private void rebindPlayer(Seat seat, WebSocketSession resumingSession) {
+        Player player = seat.getPlayer();
+        if (!gameRegistry.isRegistered(seat.getGame()) || player.isMissedMessagesOverflowed()) {
+            gameRegistry.unbind(seat, resumingSession);
+            if (gameRegistry.isRegistered(seat.getGame())) {
+                handleActivePlayerDisconnection(player.getSession());
+            }
+            rejectSession(resumingSession, new GameServerAccessDeniedException(RejectionReason.UNKNOWN_RESUME_TOKEN, "Game to resume has already ended"));
+            return;
+        }
+
+        WebSocketSession droppedSession = player.getSession();
+        List<Pair<String, String>> missedMessages = player.resume(resumingSession);
+        gameRegistry.unbind(seat, droppedSession);
+        armHeartbeatTimeout(player);
+        missedMessages.forEach(missedMessage -> sendMessage(player, missedMessage.getValue0(), missedMessage.getValue1()));
+        logger.info("Player {} resumed game {} from session {}, {} missed messages replayed", player.getName(), seat.getGame().getId(), resumingSession.getId(), missedMessages.size());
+
+        // connection could have been dropped without the server noticing it (i.e. half-open TCP connection)
+        if (droppedSession.isOpen()) {
+            outboundQueues.getSender().execute(() -> closeReplacedSession(droppedSession));
+        }
+    }
+
+    private void closeReplacedSession(WebSocketSession replacedSession) {
         try {
-            handlePlayersPairing(session, playerName);
-            logger.info("Server connection opened, session id: {}, player name: {}", session.getId(), playerName);
-        } catch (Exception e) {
-            logger.error("Exception in acceptSession: {}", ExceptionUtils.getStackTrace(e));
+            replacedSession.close(CloseStatus.POLICY_VIOLATION.withReason("Session resumed from another connection"));
+        } catch (IOException e) {
+            logger.error("Exception during closing replaced session with id: {}", replacedSession.getId());
         }
     }
 
-    private void rejectSession(WebSocketSession session, String rejectionReason) {
-        logger.info("Session {} rejected, reason: {}", session.getId(), rejectionReason);
+    private void rejectSession(WebSocketSession session, GameServerAccessDeniedException rejection) {
+        logger.info("Session {} rejected, reason: {}", session.getId(), rejection.getMessage());
+        gameServerMetrics.recordRejection(rejection.getRejectionReason());
 
         try {
-            session.sendMessage(buildTextMessage(SESSION_REJECTED, rejectionReason));
-            ensureSessionClosed(session);
+            outboundQueues.send(session, SESSION_REJECTED, getMessageCodec(session).encodeSessionRejection(rejection.getMessage(), rejection.getRetryAfter()));
+            rejectedSessionsReaper.track(session); // in case the client doesn't close the session itself
         } catch (Exception e) {
             logger.error("Exception in rejectSession: {}", ExceptionUtils.getStackTrace(e));
         }
     }
 
-    private String validateAndGetMessageType(JSONObject payload) {
-        if (!payload.has(MESSAGE_TYPE)) {
-            throw new MissingParameterException("Missing message type header");
-        }
-
-        return payload.getString(MESSAGE_TYPE);
-    }
+    private void handlePlayersPairing(Pair<Player, Player> pairedPlayers, GameSettings gameSettings) {
+        Player firstPlayer = pairedPlayers.getValue0();
+        Player secondPlayer = pairedPlayers.getValue1();
 
-    private void handlePlayersPairing(WebSocketSession session, String playerName) throws IOException {
-        if (isLonelyPlayer()) {
-            Player firstPlayer = PlayerFactory.createPlayer(lonelyPlayer.getSession(), lonelyPlayer.getName()); // shallow copy
-            clearLonelyPlayerReference();
-            Player secondPlayer = PlayerFactory.createPlayer(session, playerName);
-            games.add(GameFactory.createGame(firstPlayer, secondPlayer));
+        Game game = GameFactory.createGame(firstPlayer, secondPlayer, gameSettings);
+        gameJournal.gameStarted(game);
+        gameRegistry.register(game);
 
-            firstPlayer.getSession().sendMessage(buildTextMessage(GAME_STARTED, "1st player"));
-            secondPlayer.getSession().sendMessage(buildTextMessage(GAME_STARTED, "2nd player"));
-        } else {
-            lonelyPlayer = PlayerFactory.createPlayer(session, playerName);
-        }
+        eventLoopGroup.execute(game.getId(), () -> {
+            try {
+                sendMessageWithResumeToken(firstPlayer, GAME_STARTED, FIRST_PLAYER);
+                sendMessageWithResumeToken(secondPlayer, GAME_STARTED, SECOND_PLAYER);
+            } finally {
+                handlePairedSessionClosedInLobby(firstPlayer, secondPlayer);
+            }
+        });
     }
 
-    private void checkLonelyPlayerSession(long currentTimestamp) {
-        if (isLonelyPlayer() && isHeartbeatExpired(currentTimestamp).test(lonelyPlayer)) {
-            closeInactiveSession(lonelyPlayer);
+    // player could have disconnected after being claimed by the matchmaker but before the game was registered
+    private void handlePairedSessionClosedInLobby(Player firstPlayer, Player secondPlayer) {
+        Optional<WebSocketSession> closedSession = Stream.of(firstPlayer, secondPlayer).map(Player::getSession).filter(session -> !session.isOpen()).findFirst();
+        if (closedSession.isPresent()) {
+            handleActivePlayerDisconnection(closedSession.get());
         }
     }
 
-    private void checkActiveGamesSessions(long currentTimestamp) {
-        games.stream().flatMap(game -> Stream.of(game.getFirstPlayer(), game.getSecondPlayer())).filter(isHeartbeatExpired(currentTimestamp)).forEach(this::closeInactiveSession);
+    // Instead of periodically scanning all the players every player has its own deadline in the timing wheel,
+    // which is moved forward by every heartbeat. Only the sessions which actually expired are closed.
+    private void armHeartbeatTimeout(Player player) {
+        armHeartbeatTimeout(player, webSocketServerConfig.requiredHeartbeatFrequency);
     }
 
-    private Predicate<Player> isHeartbeatExpired(long currentTimestamp) {
-        return player -> currentTimestamp - player.getLastHeartbeat() > webSocketServerConfig.requiredHeartbeatFrequency;
+    private void armHeartbeatTimeout(Player player, long delay) {
+        player.replaceHeartbeatTimeout(timingWheel.schedule(() -> closeInactiveSession(player), delay));
     }
 
-    private void handleLonelyPlayerDisconnection() {
-        clearLonelyPlayerReference();
+    // The seat is held for the grace period, so the player whose connection dropped can resume the game with its token.
+    // Finished games (or all of them if the grace period is 0) are removed at once.
+    private void handleSeatedPlayerDisconnection(Seat seat, WebSocketSession disconnectingSession) {
+        Player player = seat.getPlayer();
+        Game game = seat.getGame();
+        if (player.getSession() != disconnectingSession || !gameRegistry.isRegistered(game)) {
+            return; // already resumed from another session or removed
+        }
+
+        if (game.isFinished() || webSocketServerConfig.resumeGracePeriod == 0) {
+            handleActivePlayerDisconnection(disconnectingSession);
+            return;
+        }
+
+        player.hold(timingWheel.schedule(() -> eventLoopGroup.execute(game.getId(), () -> expireHeldSeat(player, disconnectingSession)), webSocketServerConfig.resumeGracePeriod));
+        logger.info("Seat of player {} in game {} held for {} ms", player.getName(), game.getId(), webSocketServerConfig.resumeGracePeriod);
     }
 
-    private void handleActivePlayerDisconnection(WebSocketSession disconnectingSession) throws IOException {
-        // if it's not a lonely session player server should: inform second player about disconnection and remove the game
-        Optional<WebSocketSession> optionalOpponentSession = findOptionalOpponentSession(disconnectingSession);
-        if (optionalOpponentSession.isPresent()) {
-            WebSocketSession opponentSession = optionalOpponentSession.get();
-            opponentSession.sendMessage(buildTextMessage(PAIRED_SESSION_DISCONNECTED, "Your opponent has disconnected"));
+    private void expireHeldSeat(Player player, WebSocketSession droppedSession) {
+        if (player.getSession() == droppedSession) {
+            logger.info("Grace period of player {} passed, removing the game", player.getName());
+            handleActivePlayerDisconnection(droppedSession);
         }
+    }
 
-        removeGame(disconnectingSession);
+    private void handleActivePlayerDisconnection(WebSocketSession disconnectingSession) {
+        // if it's not a waiting player session server should: remove the game and inform second player about disconnection
+        // opponent's heartbeat timeout stays armed, so its session is closed if it's kept open without the game
+        Optional<Seat> removedSeat = gameRegistry.remove(disconnectingSession);
+        if (removedSeat.isPresent()) {
+            gameJournal.gameEnded(removedSeat.get().getGame().getId());
+            removedSeat.get().getPlayer().cancelHeartbeatTimeout();
+            sendMessage(removedSeat.get().getOpponent(), PAIRED_SESSION_DISCONNECTED, OPPONENT_DISCONNECTED);
+        }
     }
 
     private void closeInactiveSession(Player player) {
+        if (!player.getSession().isOpen()) {
+            return;
+        }
+
+        // heartbeat could have arrived while the timeout was firing
+        long timeLeft = player.getLastHeartbeat() + webSocketServerConfig.requiredHeartbeatFrequency - System.currentTimeMillis();
+        if (timeLeft > 0) {
+            armHeartbeatTimeout(player, timeLeft);
+            return;
+        }
+
         try {
             logger.info("Inactive session detected: {}, closing it...", player.getSession().getId());
+            gameServerMetrics.recordHeartbeatExpiration();
             player.getSession().close(); // triggers afterConnectionClose()
         } catch (IOException e) {
-            logger.error("Exception in inactiveSessionsCleaner, during closing idle session with id: {}", player.getSession().getId());
+            logger.error("Exception during closing idle session with id: {}", player.getSession().getId());
         }
     }
 
     // Send refreshed game status to opponent. Game status in the server will be updated only
     // after getting the confirmation of receiving the game status update from the opponent.
-    private void forwardGameUpdateToOpponent(WebSocketSession session, JSONObject payload) throws IOException {
-        String opponentChosenSquareNumber = payload.getString(DATA);
-        findOpponentSession(session).sendMessage(buildTextMessage(GAME_UPDATED, opponentChosenSquareNumber));
-    }
-
-    private WebSocketSession findOpponentSession(WebSocketSession messagingSession) {
-        return games.stream().filter(game -> game.getFirstPlayer().getSession().equals(messagingSession) || game.getSecondPlayer().getSession().equals(messagingSession)).map(game -> game.getFirstPlayer().getSession().equals(messagingSession) ? game.getSecondPlayer().getSession() : game.getFirstPlayer().getSession()).findFirst().orElseThrow(() -> new GameException("No opponent session found for messaging session: " + messagingSession));
-    }
-
-    private Optional<WebSocketSession> findOptionalOpponentSession(WebSocketSession messagingSession) {
-        return games.stream().filter(game -> game.getFirstPlayer().getSession().equals(messagingSession) || game.getSecondPlayer().getSession().equals(messagingSession)).map(game -> game.getFirstPlayer().getSession().equals(messagingSession) ? game.getSecondPlayer().getSession() : game.getFirstPlayer().getSession()).findFirst();
-    }
-
-    private void updateLastHeartbeat(WebSocketSession callingSession) throws IOException {
-        if (isCallingSessionLonelyPlayerSession(callingSession)) {
-            updateLonelyPlayerLastHeartbeat();
-        } else {
-            updateActivePlayerLastHeartbeat(callingSession);
-        }
+    private void forwardGameUpdateToOpponent(Seat seat, IncomingMessage incomingMessage) {
+        verifyGameMode(seat.getGame(), GameMode.RELAYED);
+        String opponentChosenSquareNumber = incomingMessage.getData();
+        sendMessage(seat.getOpponent(), GAME_UPDATED, opponentChosenSquareNumber);
     }
 
-    private void updateLonelyPlayerLastHeartbeat() {
-        lonelyPlayer.updateLastHeartbeat();
+    private void updateWaitingPlayerLastHeartbeat(Player waitingPlayer) {
+        waitingPlayer.updateLastHeartbeat();
+        armHeartbeatTimeout(waitingPlayer);
     }
 
-    private void updateActivePlayerLastHeartbeat(WebSocketSession callingSession) throws IOException {
-        Player sessionRelatedPlayer = games.stream().filter(game -> game.getFirstPlayer().getSession().equals(callingSession) || game.getSecondPlayer().getSession().equals(callingSession)).map(game -> game.getFirstPlayer().getSession().equals(callingSession) ? game.getFirstPlayer() : game.getSecondPlayer()).findFirst().orElseThrow(() -> new GameException("No related session found"));
+    private void updateActivePlayerLastHeartbeat(Seat seat) {
+        Player sessionRelatedPlayer = seat.getPlayer();
         sessionRelatedPlayer.updateLastHeartbeat();
-        callingSession.sendMessage(buildTextMessage(HEARTBEAT_RECEIVED_CONFIRMATION, String.valueOf(System.currentTimeMillis())));
-    }
-
-    private void forwardMessageToOpponent(WebSocketSession messagingSession, JSONObject payload) throws IOException {
-        String actualMessage = payload.getString(DATA);
-        findOpponentSession(messagingSession).sendMessage(buildTextMessage(OPPONENT_MESSAGE, actualMessage));
+        armHeartbeatTimeout(sessionRelatedPlayer);
+        sendMessage(sessionRelatedPlayer, HEARTBEAT_RECEIVED_CONFIRMATION, String.valueOf(System.currentTimeMillis()));
     }
 
-    private Game findGameRelated(WebSocketSession session) {
-        return games.stream().filter(game -> game.getFirstPlayer().getSession().equals(session) || game.getSecondPlayer().getSession().equals(session)).findFirst().orElseThrow(() -> new GameException("No related game found"));
+    private void forwardMessageToOpponent(Seat seat, IncomingMessage incomingMessage) {
+        String actualMessage = incomingMessage.getData();
+        sendMessage(seat.getOpponent(), OPPONENT_MESSAGE, actualMessage);
     }
 
     // After receiving confirmation from the opponent: 1. send a confirmation to the player about
     // receiving the message, 2. update game status in the server, 3. determine new state, 4. (optional):
     // finish the game and send history to history-service.
-    private void updateGameStatus(WebSocketSession confirmingSession, JSONObject jsonMessage) throws IOException {
-        Game game = findGameRelated(confirmingSession);
-        Player firstPlayer = game.getFirstPlayer();
-        Player secondPlayer = game.getSecondPlayer();
-
-        Player confirmingPlayer = firstPlayer.getSession().equals(confirmingSession) ? firstPlayer : secondPlayer;
-        Player opponent = confirmingPlayer.equals(firstPlayer) ? secondPlayer : firstPlayer;
+    private void updateGameStatus(Seat seat, IncomingMessage incomingMessage) {
+        Game game = seat.getGame();
+        verifyGameMode(game, GameMode.RELAYED);
+        Player confirmingPlayer = seat.getPlayer();
+        Player opponent = seat.getOpponent();
 
-        opponent.getSession().sendMessage(buildTextMessage(OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION, "Opponent received the update"));
+        sendMessage(opponent, OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION, OPPONENT_RECEIVED_UPDATE);
 
-        String playerChosenSquareValueAndNumber = jsonMessage.getString(DATA);
-        String playerChosenSquareValue = playerChosenSquareValueAndNumber.substring(0, 1);
-        String playerChosenSquareNumber = playerChosenSquareValueAndNumber.substring(1, 2);
-
-        Tictactoe tictactoe = game.getTictactoe();
-        tictactoe.updateState(playerChosenSquareNumber, playerChosenSquareValue);
-        Tictactoe.Result result = tictactoe.checkWhetherGameEnded();
+        game.markSquare(incomingMessage.getSquareValue(), incomingMessage.getSquareNumber());
+        gameJournal.moveApplied(game.getId(), incomingMessage.getSquareValue(), incomingMessage.getSquareNumber());
+        Tictactoe.Result result = game.getBoard().checkWhetherGameEnded();
 
         if (!result.equals(ONGOING)) {
+            game.finish();
             informPlayersAboutFinishedGame(confirmingPlayer, result, opponent);
             informHistoryServiceAboutFinishedGame(game, result);
         }
     }
 
-    private boolean isLonelyPlayer() {
-        return lonelyPlayer != null;
-    }
-
-    private boolean isCallingSessionLonelyPlayerSession(WebSocketSession callingSession) {
-        return isLonelyPlayer() && lonelyPlayer.getSession().equals(callingSession);
-    }
+    // Server-authoritative variant of the above: the move is validated and applied at once and its result is sent to
+    // both players, so the board state exists on the server after a single leg. Moves are numbered by the client with
+    // the next sequence number of the game, a retransmitted move is answered with the last applied one (not applied
+    // again), so retrying after a lost result is safe.
+    private void applyPlayerMove(Seat seat, IncomingMessage incomingMessage) {
+        Game game = seat.getGame();
+        Player movingPlayer = seat.getPlayer();
+        Player opponent = seat.getOpponent();
+        verifyGameMode(game, GameMode.AUTHORITATIVE);
+
+        long sequenceNumber = incomingMessage.getMoveSequenceNumber();
+        if (sequenceNumber <= game.getLastMoveSequenceNumber()) {
+            if (sequenceNumber > 0 && sequenceNumber == game.getLastMoveSequenceNumber()) {
+                sendMessage(movingPlayer, MOVE_APPLIED, game.getLastMove());
+            }
+            return;
+        }
 
-    private void clearLonelyPlayerReference() {
-        lonelyPlayer = null;
-    }
+        String appliedMove;
+        try {
+            if (sequenceNumber != game.getLastMoveSequenceNumber() + 1) {
+                throw new TictactoeException("Expected move number " + (game.getLastMoveSequenceNumber() + 1));
+            }
+            appliedMove = game.applyMove(movingPlayer, incomingMessage.getSquareNumber());
+        } catch (TictactoeException | NumberFormatException e) {
+            sendMessage(movingPlayer, MOVE_REJECTED, e.getMessage());
+            return;
+        }
 
-    private void informPlayersAboutFinishedGame(Player confirmingPlayer, Tictactoe.Result result, Player opponent) throws IOException {
-        confirmingPlayer.getSession().sendMessage(buildTextMessage(GAME_ENDED, result.message()));
-        opponent.getSession().sendMessage(buildTextMessage(GAME_ENDED, result.message()));
-    }
+        gameJournal.moveApplied(game.getId(), game.getSymbolOf(movingPlayer), incomingMessage.getSquareNumber());
+        sendMessage(movingPlayer, MOVE_APPLIED, appliedMove);
+        sendMessage(opponent, MOVE_APPLIED, appliedMove);
 
-    private void informHistoryServiceAboutFinishedGame(Game game, Tictactoe.Result result) throws JsonProcessingException {
-        historyServiceClient.postForEntity("", getRequestHttpEntity(game, result), String.class);
+        Tictactoe.Result result = game.getBoard().checkWhetherGameEnded();
+        if (!result.equals(ONGOING)) {
+            game.finish();
+            informPlayersAboutFinishedGame(movingPlayer, result, opponent);
+            informHistoryServiceAboutFinishedGame(game, result);
+        }
     }
 
-    private void removeGame(WebSocketSession disconnectingSession) {
-        games.removeIf(game -> game.getFirstPlayer().getSession().equals(disconnectingSession) || game.getSecondPlayer().getSession().equals(disconnectingSession));
+    private void verifyGameMode(Game game, GameMode expectedGameMode) {
+        if (game.getGameSettings().gameMode() != expectedGameMode) {
+            throw new GameException("Message not supported in " + game.getGameSettings().gameMode() + " game: " + game.getId());
+        }
     }
 
-    private TextMessage buildTextMessage(String messageType, String messageData) {
-        Map<String, String> message = Map.of(MESSAGE_TYPE, messageType, DATA, messageData);
-        return new TextMessage(new JSONObject(message).toString());
+    private void informPlayersAboutFinishedGame(Player confirmingPlayer, Tictactoe.Result result, Player opponent) {
+        sendMessage(confirmingPlayer, GAME_ENDED, result.message());
+        sendMessage(opponent, GAME_ENDED, result.message());
     }
 
-    private HttpEntity<String> getRequestHttpEntity(Game game, Tictactoe.Result result) throws JsonProcessingException {
+    // game is only handed over to the outbox, sending it to history-service doesn't delay the event loop
+    private void informHistoryServiceAboutFinishedGame(Game game, Tictactoe.Result result) {
         FinishedGameData finishedGameData = getFinishedGameData(game, result);
-
-        logger.info("Game finished for players: {}, {}. Winner: {}. Sending game result to history-service", finishedGameData.getFirstPlayerName(), finishedGameData.getSecondPlayerName(), finishedGameData.getWinnerName());
-
-        HttpHeaders requestHeaders = new HttpHeaders();
-        requestHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        String requestBody = objectMapper.writeValueAsString(finishedGameData);
-
-        return new HttpEntity<>(requestBody, requestHeaders);
+        logger.info("Game finished for players: {}, {}. Winner: {}. Passing game result to history-service outbox", finishedGameData.getFirstPlayerName(), finishedGameData.getSecondPlayerName(), finishedGameData.getWinnerName());
+        gameJournal.gameEnded(game.getId());
+        finishedGamesOutbox.add(finishedGameData);
     }
 
     private FinishedGameData getFinishedGameData(Game game, Tictactoe.Result result) {
@@ -339,25 +574,38 @@ public class GameServer extends TextWebSocketHandler {
             default -> "";
         };
 
-        Tictactoe tictactoe = game.getTictactoe();
-        return new FinishedGameData(game.getFirstPlayer().getName(), game.getSecondPlayer().getName(), winnerName, tictactoe.getGameStartedUTC(), tictactoe.getGameEndedUTC(), tictactoe.getNumberOfWinningMovements());
-    }
-
-    // cleaning just in case rejected session haven't closed the session after 10 seconds since receiving rejection message
-    private void ensureSessionClosed(WebSocketSession session) {
-        try (ExecutorService executorService = Executors.newFixedThreadPool(1)) {
-            executorService.submit(() -> {
-                try {
-                    Thread.sleep(10000);
-                    if (session.isOpen()) {
-                        session.close();
-                    }
-                } catch (Exception e) {
-                    logger.error("Exception during closing the rejected session: {}", ExceptionUtils.getStackTrace(e));
-                }
-            });
-        } catch (Exception e) {
-            logger.error("Exception in ExecutorService: {}", ExceptionUtils.getStackTrace(e));
+        Board board = game.getBoard();
+        return new FinishedGameData(game.getFirstPlayer().getName(), game.getSecondPlayer().getName(), winnerName, board.getGameStartedUTC(), board.getGameEndedUTC(), board.getNumberOfWinningMovements(), game.getMoveLog().toByteArray());
+    }
+
+    // messages to the player whose seat is held are kept to be replayed after the resume
+    private void sendMessage(Player player, String messageType, String messageData) {
+        if (player.isDisconnected()) {
+            player.addMissedMessage(messageType, messageData, webSocketServerConfig.resumeBufferSize);
+            return;
+        }
+
+        sendMessage(player.getSession(), messageType, messageData);
+    }
+
+    // missed one is replayed without the token, the resuming session has already presented it
+    private void sendMessageWithResumeToken(Player player, String messageType, String messageData) {
+        if (player.isDisconnected()) {
+            player.addMissedMessage(messageType, messageData, webSocketServerConfig.resumeBufferSize);
+            return;
         }
+
+        WebSocketSession session = player.getSession();
+        outboundQueues.send(session, messageType, getMessageCodec(session).encodeWithResumeToken(messageType, messageData, player.getResumeToken()));
+    }
+
+    // messages are only queued, so neither the event loops nor the opponent wait for a slow client
+    private void sendMessage(WebSocketSession session, String messageType, String messageData) {
+        outboundQueues.send(session, messageType, getMessageCodec(session).encode(messageType, messageData));
+    }
+
+    // outgoing messages are encoded in the protocol negotiated by the receiving session
+    private MessageCodec getMessageCodec(WebSocketSession session) {
+        return BinaryMessageCodec.SUBPROTOCOL.equals(session.getAcceptedProtocol()) ? binaryMessageCodec : jsonMessageCodec;
     }
 }
\ No newline at end of file
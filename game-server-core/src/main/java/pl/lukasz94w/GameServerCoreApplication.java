@@ -2,13 +2,16 @@ package pl.lukasz94w;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableScheduling
 public class GameServerCoreApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(GameServerCoreApplication.class, args);
     }
+
+    // used by the smoke test executed in the Jenkins pipeline
+    static int someTestMethodForJenkinsTesting(int a, int b) {
+        return a + b;
+    }
 }
\ No newline at end of file
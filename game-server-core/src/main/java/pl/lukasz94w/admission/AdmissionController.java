@@ -0,0 +1,130 @@
+package pl.lukasz94w.admission;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.lukasz94w.configuration.AdmissionControlConfig;
+import pl.lukasz94w.eventloop.EventLoopGroup;
+import pl.lukasz94w.exception.GameServerAccessDeniedException;
+import pl.lukasz94w.exception.RejectionReason;
+import pl.lukasz94w.scheduler.HashedTimingWheel;
+import pl.lukasz94w.scheduler.Timeout;
+import pl.lukasz94w.session.OutboundQueues;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// Decides whether a new player can join the server. Limit of the active games is adjusted like the AIMD concurrency
+// limit: while the server is healthy and the limit is actually used it grows by one game per adjustment, when any of
+// the overload signals (event loop latency, event loop backlog, send backlog, CPU load) crosses its threshold it's cut
+// by the decrease factor. Additionally every user has a small bucket of handshakes, so reconnect storms of single
+// clients are rejected before they reach the lobby.
+public class AdmissionController {
+
+    private static final double UTILIZATION_REQUIRED_FOR_INCREASE = 0.9;
+
+    private final Logger logger = LoggerFactory.getLogger(AdmissionController.class);
+
+    private final AdmissionControlConfig config;
+
+    private final EventLoopGroup eventLoopGroup;
+
+    private final OutboundQueues outboundQueues;
+
+    private final HashedTimingWheel timingWheel;
+
+    private final OperatingSystemMXBean operatingSystem;
+
+    private final Map<String, HandshakeTokenBucket> handshakeTokenBuckets;
+
+    // the highest number of games observed by admit() since the last adjustment
+    private final LongAccumulator peakNumberOfGames;
+
+    private volatile int limit;
+
+    private volatile Timeout nextAdjustment;
+
+    private volatile boolean stopped;
+
+    public AdmissionController(AdmissionControlConfig config, EventLoopGroup eventLoopGroup, OutboundQueues outboundQueues, HashedTimingWheel timingWheel) {
+        this.config = config;
+        this.eventLoopGroup = eventLoopGroup;
+        this.outboundQueues = outboundQueues;
+        this.timingWheel = timingWheel;
+        operatingSystem = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        handshakeTokenBuckets = new ConcurrentHashMap<>();
+        peakNumberOfGames = new LongAccumulator(Long::max, 0);
+        limit = config.initialLimit;
+        scheduleAdjustment();
+    }
+
+    public void admit(String userName, int numberOfGames) {
+        HandshakeTokenBucket handshakeTokenBucket = handshakeTokenBuckets.computeIfAbsent(userName, name -> new HandshakeTokenBucket(config.handshakeBurst, config.handshakeRefillPeriod));
+        long handshakeRetryAfter = handshakeTokenBucket.tryAcquire();
+        if (handshakeRetryAfter > 0) {
+            throw new GameServerAccessDeniedException(RejectionReason.HANDSHAKE_RATE_LIMITED, "Too many connection attempts. Try again later", toSeconds(handshakeRetryAfter));
+        }
+
+        peakNumberOfGames.accumulate(numberOfGames);
+        if (numberOfGames >= limit) {
+            // jitter spreads the retries of the players rejected at the same time
+            throw new GameServerAccessDeniedException(RejectionReason.CAPACITY_EXCEEDED, "Maximum number of active sessions exceeded. Try again later", config.retryAfter + ThreadLocalRandom.current().nextLong(config.retryAfter + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void stop() {
+        stopped = true;
+        Timeout adjustment = nextAdjustment;
+        if (adjustment != null) {
+            adjustment.cancel();
+        }
+    }
+
+    private void scheduleAdjustment() {
+        if (!stopped) {
+            nextAdjustment = timingWheel.schedule(this::adjust, config.adjustmentInterval);
+        }
+    }
+
+    private void adjust() {
+        try {
+            adjustLimit();
+            handshakeTokenBuckets.values().removeIf(HandshakeTokenBucket::isFull);
+        } catch (Exception e) {
+            logger.error("Exception in adjust: {}", ExceptionUtils.getStackTrace(e));
+        } finally {
+            scheduleAdjustment();
+        }
+    }
+
+    private void adjustLimit() {
+        long eventLoopLatency = eventLoopGroup.getAndResetMaxTaskLatencyMillis();
+        long eventLoopBacklog = eventLoopGroup.getNumberOfPendingTasks();
+        long sendBacklog = outboundQueues.getNumberOfBufferedMessages();
+        double cpuLoad = operatingSystem.getCpuLoad(); // negative when not available
+        long peakGames = peakNumberOfGames.getThenReset();
+
+        if (eventLoopLatency > config.maxEventLoopLatency || eventLoopBacklog > config.maxEventLoopBacklog || sendBacklog > config.maxSendBacklog || cpuLoad > config.maxCpuLoad) {
+            int decreasedLimit = Math.max(config.minLimit, (int) (limit * config.decreaseFactor));
+            if (decreasedLimit < limit) {
+                logger.info("Server overloaded (event loop latency: {} ms, backlog: {}, send backlog: {}, CPU load: {}), games limit decreased to: {}", eventLoopLatency, eventLoopBacklog, sendBacklog, cpuLoad, decreasedLimit);
+            }
+            limit = decreasedLimit;
+        } else if (peakGames >= limit * UTILIZATION_REQUIRED_FOR_INCREASE) {
+            limit = Math.min(config.maxLimit, limit + 1);
+        }
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(millis + 999));
+    }
+}
@@ -0,0 +1,43 @@
+package pl.lukasz94w.admission;
+
+// Handshakes allowed for a single user: up to capacity at once, then one per refill period.
+class HandshakeTokenBucket {
+
+    private final int capacity;
+
+    private final long refillPeriod;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    HandshakeTokenBucket(int capacity, long refillPeriod) {
+        this.capacity = capacity;
+        this.refillPeriod = refillPeriod;
+        this.tokens = capacity;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    // returns 0 if the handshake is allowed, otherwise time (in ms) after which the next one will be
+    synchronized long tryAcquire() {
+        long now = System.currentTimeMillis();
+        refill(now);
+
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+
+        return (long) Math.ceil((1 - tokens) * refillPeriod);
+    }
+
+    synchronized boolean isFull() {
+        refill(System.currentTimeMillis());
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / refillPeriod);
+        lastRefill = now;
+    }
+}
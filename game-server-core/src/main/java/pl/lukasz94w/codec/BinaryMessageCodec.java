@@ -0,0 +1,230 @@
+package pl.lukasz94w.codec;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import pl.lukasz94w.exception.MessageFormatException;
+import pl.lukasz94w.exception.MissingParameterException;
+import pl.lukasz94w.tictactoe.Tictactoe;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.*;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.FIRST_PLAYER;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.SECOND_PLAYER;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.*;
+
+// Compact protocol for the clients which negotiated the SUBPROTOCOL at handshake. Every frame starts with one byte
+// of the message type followed by the payload of that type:
+// - chat messages and move rejections: UTF-8 text,
+// - session rejected: retry-after hint in seconds (int, 0 if retrying won't help) and UTF-8 reason,
+// - game updates and their confirmations: square value (ASCII 'X' or 'O') and square number (unsigned short),
+// - moves of the authoritative games: sequence number (int) and square number (unsigned short),
+// - applied moves: sequence number (int), square value and square number (unsigned short),
+// - game started: 1 for the first player, 2 for the second one, followed by the resume token (ASCII) if there is one,
+// - game restored: player number as above, length of the resume token (byte), the token and the moves made so far,
+//   square value and square number each,
+// - game ended: ordinal of the Tictactoe.Result,
+// - heartbeat confirmation: server time in millis (long),
+// - the rest has no payload.
+// Numbers are big-endian.
+public class BinaryMessageCodec implements MessageCodec {
+
+    public static final String SUBPROTOCOL = "tictactoe.binary.v1";
+
+    // client message types
+    static final byte PLAYER_MESSAGE_CODE = 0x01;
+    static final byte GAME_UPDATE_CODE = 0x02;
+    static final byte HEARTBEAT_CODE = 0x03;
+    static final byte PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION_CODE = 0x04;
+    static final byte PLAYER_MOVE_CODE = 0x05;
+
+    // server message types
+    static final byte OPPONENT_MESSAGE_CODE = 0x11;
+    static final byte GAME_STARTED_CODE = 0x12;
+    static final byte GAME_UPDATED_CODE = 0x13;
+    static final byte OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION_CODE = 0x14;
+    static final byte GAME_ENDED_CODE = 0x15;
+    static final byte HEARTBEAT_RECEIVED_CONFIRMATION_CODE = 0x16;
+    static final byte PAIRED_SESSION_DISCONNECTED_CODE = 0x17;
+    static final byte SESSION_REJECTED_CODE = 0x18;
+    static final byte MOVE_APPLIED_CODE = 0x19;
+    static final byte MOVE_REJECTED_CODE = 0x1A;
+    static final byte GAME_RESTORED_CODE = 0x1B;
+
+    private static final int MAX_SQUARE_NUMBER = 0xFFFF;
+
+    private final Map<String, byte[]> gameResults;
+
+    public BinaryMessageCodec() {
+        gameResults = new HashMap<>();
+        for (Tictactoe.Result result : Tictactoe.Result.values()) {
+            gameResults.put(result.message(), new byte[]{GAME_ENDED_CODE, (byte) result.ordinal()});
+        }
+    }
+
+    @Override
+    public IncomingMessage decode(WebSocketMessage<?> message) {
+        if (!(message instanceof BinaryMessage binaryMessage)) {
+            throw new MessageFormatException("Binary protocol accepts only binary messages");
+        }
+
+        ByteBuffer payload = binaryMessage.getPayload().duplicate();
+        if (!payload.hasRemaining()) {
+            throw new MissingParameterException("Missing message type header");
+        }
+
+        try {
+            byte typeCode = payload.get();
+            return switch (typeCode) {
+                case PLAYER_MESSAGE_CODE -> new IncomingMessage(PLAYER_MESSAGE, StandardCharsets.UTF_8.decode(payload).toString());
+                case GAME_UPDATE_CODE -> readSquare(GAME_UPDATE, payload);
+                case HEARTBEAT_CODE -> new IncomingMessage(HEARTBEAT, null);
+                case PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION_CODE -> readSquare(PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION, payload);
+                case PLAYER_MOVE_CODE -> new IncomingMessage(PLAYER_MOVE, Integer.toUnsignedLong(payload.getInt()), Short.toUnsignedInt(payload.getShort()));
+                default -> new IncomingMessage(String.valueOf(typeCode), null); // unknown type, reported by the handler
+            };
+        } catch (BufferUnderflowException e) {
+            throw new MissingParameterException("Missing message data");
+        }
+    }
+
+    @Override
+    public BinaryMessage encode(String messageType, String messageData) {
+        byte[] payload = switch (messageType) {
+            case OPPONENT_MESSAGE -> writeText(OPPONENT_MESSAGE_CODE, messageData);
+            case GAME_STARTED -> writeGameStarted(messageData, "");
+            case GAME_UPDATED -> writeSquare(messageData);
+            case OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION -> new byte[]{OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION_CODE};
+            case GAME_ENDED -> toGameResult(messageData);
+            case HEARTBEAT_RECEIVED_CONFIRMATION -> ByteBuffer.allocate(9).put(HEARTBEAT_RECEIVED_CONFIRMATION_CODE).putLong(Long.parseLong(messageData)).array();
+            case PAIRED_SESSION_DISCONNECTED -> new byte[]{PAIRED_SESSION_DISCONNECTED_CODE};
+            case SESSION_REJECTED -> writeSessionRejection(messageData, 0);
+            case MOVE_APPLIED -> writeMove(messageData);
+            case MOVE_REJECTED -> writeText(MOVE_REJECTED_CODE, messageData);
+            case GAME_RESTORED -> writeRestoredGame(messageData, "");
+            default -> throw new MessageFormatException("Message type not supported by binary protocol: " + messageType);
+        };
+
+        return new BinaryMessage(payload);
+    }
+
+    @Override
+    public BinaryMessage encodeSessionRejection(String rejectionReason, long retryAfter) {
+        return new BinaryMessage(writeSessionRejection(rejectionReason, retryAfter));
+    }
+
+    @Override
+    public BinaryMessage encodeWithResumeToken(String messageType, String messageData, String resumeToken) {
+        byte[] payload = switch (messageType) {
+            case GAME_STARTED -> writeGameStarted(messageData, resumeToken);
+            case GAME_RESTORED -> writeRestoredGame(messageData, resumeToken);
+            default -> throw new MessageFormatException("Message type doesn't carry resume token: " + messageType);
+        };
+
+        return new BinaryMessage(payload);
+    }
+
+    private static byte[] writeSessionRejection(String rejectionReason, long retryAfter) {
+        byte[] encodedReason = rejectionReason.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(encodedReason.length + 5).put(SESSION_REJECTED_CODE).putInt((int) Math.min(retryAfter, Integer.MAX_VALUE)).put(encodedReason).array();
+    }
+
+    private static IncomingMessage readSquare(String messageType, ByteBuffer payload) {
+        byte squareValue = payload.get();
+        if (squareValue != 'X' && squareValue != 'O') {
+            throw new MessageFormatException("Wrong square value in message: " + squareValue);
+        }
+
+        int squareNumber = Short.toUnsignedInt(payload.getShort());
+        return new IncomingMessage(messageType, squareValue == 'X' ? "X" : "O", squareNumber);
+    }
+
+    // game update data is forwarded from the opponent in the "X4" form
+    private static byte[] writeSquare(String messageData) {
+        if (messageData.length() < 2) {
+            throw new MessageFormatException("Malformed game update: " + messageData);
+        }
+
+        int squareNumber;
+        try {
+            squareNumber = Integer.parseInt(messageData, 1, messageData.length(), 10);
+        } catch (NumberFormatException e) {
+            throw new MessageFormatException("Malformed game update: " + messageData);
+        }
+        if (squareNumber < 0 || squareNumber > MAX_SQUARE_NUMBER) {
+            throw new MessageFormatException("Square number out of range: " + squareNumber);
+        }
+
+        return ByteBuffer.allocate(4).put(GAME_UPDATED_CODE).put((byte) messageData.charAt(0)).putShort((short) squareNumber).array();
+    }
+
+    // applied move data is sent in the "3:X4" form
+    private static byte[] writeMove(String messageData) {
+        int separator = messageData.indexOf(':');
+        if (separator <= 0) {
+            throw new MessageFormatException("Malformed move: " + messageData);
+        }
+
+        long sequenceNumber;
+        try {
+            sequenceNumber = Long.parseLong(messageData, 0, separator, 10);
+        } catch (NumberFormatException e) {
+            throw new MessageFormatException("Malformed move: " + messageData);
+        }
+
+        byte[] square = writeSquare(messageData.substring(separator + 1));
+        return ByteBuffer.allocate(8).put(MOVE_APPLIED_CODE).putInt((int) sequenceNumber).put(square, 1, 3).array();
+    }
+
+    private static byte[] writeGameStarted(String messageData, String resumeToken) {
+        byte[] encodedResumeToken = resumeToken.getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocate(2 + encodedResumeToken.length).put(GAME_STARTED_CODE).put(toPlayerNumber(messageData)).put(encodedResumeToken).array();
+    }
+
+    // restored game data is sent in the "1st player;X4,O0" form
+    private static byte[] writeRestoredGame(String messageData, String resumeToken) {
+        int separator = messageData.indexOf(';');
+        if (separator < 0 || resumeToken.length() > Byte.MAX_VALUE) {
+            throw new MessageFormatException("Malformed restored game: " + messageData);
+        }
+
+        byte[] encodedResumeToken = resumeToken.getBytes(StandardCharsets.US_ASCII);
+        String[] moves = separator == messageData.length() - 1 ? new String[0] : messageData.substring(separator + 1).split(",");
+        ByteBuffer payload = ByteBuffer.allocate(3 + encodedResumeToken.length + 3 * moves.length).put(GAME_RESTORED_CODE).put(toPlayerNumber(messageData.substring(0, separator)))
+                .put((byte) encodedResumeToken.length).put(encodedResumeToken);
+        for (String move : moves) {
+            payload.put(writeSquare(move), 1, 3);
+        }
+        return payload.array();
+    }
+
+    private static byte[] writeText(byte typeCode, String text) {
+        byte[] encodedText = text.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[encodedText.length + 1];
+        payload[0] = typeCode;
+        System.arraycopy(encodedText, 0, payload, 1, encodedText.length);
+        return payload;
+    }
+
+    private static byte toPlayerNumber(String messageData) {
+        return switch (messageData) {
+            case FIRST_PLAYER -> 1;
+            case SECOND_PLAYER -> 2;
+            default -> throw new MessageFormatException("Unknown player: " + messageData);
+        };
+    }
+
+    // payload arrays are never modified, so the same one can back all the messages
+    private byte[] toGameResult(String messageData) {
+        byte[] payload = gameResults.get(messageData);
+        if (payload == null) {
+            throw new MessageFormatException("Unknown game result: " + messageData);
+        }
+
+        return payload;
+    }
+}
@@ -0,0 +1,103 @@
+package pl.lukasz94w.codec;
+
+import lombok.Getter;
+import pl.lukasz94w.exception.MessageFormatException;
+import pl.lukasz94w.exception.MissingParameterException;
+
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.PLAYER_MOVE;
+
+public class IncomingMessage {
+
+    // for known message types it's the constant from ClientMessageTypeValue, so it can be compared by switch cheaply
+    @Getter
+    private final String type;
+
+    private String data;
+
+    // marked square of the game updates, decoded up front by the binary protocol or taken from data ("X4") on demand
+    private String squareValue;
+
+    private String squareNumber;
+
+    // moves of the authoritative games carry the sequence number instead of the square value ("3:4")
+    private long moveSequenceNumber = -1;
+
+    IncomingMessage(String type, String data) {
+        this.type = type;
+        this.data = data;
+    }
+
+    IncomingMessage(String type, String squareValue, int squareNumber) {
+        this.type = type;
+        this.squareValue = squareValue;
+        this.squareNumber = String.valueOf(squareNumber);
+    }
+
+    IncomingMessage(String type, long moveSequenceNumber, int squareNumber) {
+        this.type = type;
+        this.moveSequenceNumber = moveSequenceNumber;
+        this.squareNumber = String.valueOf(squareNumber);
+    }
+
+    public String getData() {
+        if (data == null && squareValue != null) {
+            data = squareValue + squareNumber;
+        }
+
+        if (data == null && moveSequenceNumber >= 0) {
+            data = moveSequenceNumber + ":" + squareNumber;
+        }
+
+        if (data == null) {
+            throw new MissingParameterException("Missing message data");
+        }
+
+        return data;
+    }
+
+    public String getSquareValue() {
+        if (squareValue == null) {
+            squareValue = getData().substring(0, 1);
+        }
+
+        return squareValue;
+    }
+
+    public String getSquareNumber() {
+        if (squareNumber == null && PLAYER_MOVE.equals(type)) {
+            readMove();
+        }
+
+        if (squareNumber == null) {
+            squareNumber = getData().substring(1); // bigger boards have multi-digit squares
+        }
+
+        return squareNumber;
+    }
+
+    public long getMoveSequenceNumber() {
+        if (moveSequenceNumber < 0) {
+            readMove();
+        }
+
+        return moveSequenceNumber;
+    }
+
+    private void readMove() {
+        String move = getData();
+        int separator = move.indexOf(':');
+        if (separator <= 0 || separator == move.length() - 1) {
+            throw new MessageFormatException("Malformed move: " + move);
+        }
+
+        try {
+            moveSequenceNumber = Long.parseLong(move, 0, separator, 10);
+        } catch (NumberFormatException e) {
+            throw new MessageFormatException("Malformed move: " + move);
+        }
+        if (moveSequenceNumber < 0) {
+            throw new MessageFormatException("Move sequence number can't be negative: " + moveSequenceNumber);
+        }
+        squareNumber = move.substring(separator + 1);
+    }
+}
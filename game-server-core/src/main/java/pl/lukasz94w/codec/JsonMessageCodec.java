@@ -0,0 +1,298 @@
+package pl.lukasz94w.codec;
+
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import pl.lukasz94w.exception.MessageFormatException;
+import pl.lukasz94w.exception.MissingParameterException;
+import pl.lukasz94w.tictactoe.Tictactoe;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static pl.lukasz94w.dto.websocket.common.JsonKey.DATA;
+import static pl.lukasz94w.dto.websocket.common.JsonKey.MESSAGE_TYPE;
+import static pl.lukasz94w.dto.websocket.common.JsonKey.RESUME_TOKEN;
+import static pl.lukasz94w.dto.websocket.common.JsonKey.RETRY_AFTER;
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.*;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.*;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.*;
+
+// Codec of the {"messageType": ..., "data": ...} envelopes, written for the hot path instead of building JSONObject
+// for every frame. Decoding scans the payload once: known message types are matched in place (no String is created
+// for them) and only the data value is copied. Messages with constant payload are encoded once and reused, the rest
+// is written into the per-thread reusable buffer.
+public class JsonMessageCodec implements MessageCodec {
+
+    public static final String SUBPROTOCOL = "tictactoe.json.v1";
+
+    private static final List<String> CLIENT_MESSAGE_TYPES = List.of(PLAYER_MESSAGE, GAME_UPDATE, HEARTBEAT, PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION, PLAYER_MOVE);
+
+    private static final ThreadLocal<StringBuilder> writeBuffer = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final Map<String, Map<String, TextMessage>> preEncodedMessages;
+
+    public JsonMessageCodec() {
+        preEncodedMessages = new HashMap<>();
+        preEncode(OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION, OPPONENT_RECEIVED_UPDATE);
+        preEncode(PAIRED_SESSION_DISCONNECTED, OPPONENT_DISCONNECTED);
+        for (Tictactoe.Result result : Tictactoe.Result.values()) {
+            preEncode(GAME_ENDED, result.message());
+        }
+    }
+
+    @Override
+    public IncomingMessage decode(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage textMessage)) {
+            throw new MessageFormatException("JSON protocol accepts only text messages");
+        }
+
+        return decode(textMessage.getPayload());
+    }
+
+    public IncomingMessage decode(String payload) {
+        String type = null;
+        String data = null;
+
+        int position = skipWhitespaces(payload, 0);
+        position = expect(payload, position, '{');
+        position = skipWhitespaces(payload, position);
+
+        if (position < payload.length() && payload.charAt(position) == '}') {
+            throw new MissingParameterException("Missing message type header");
+        }
+
+        while (true) {
+            position = skipWhitespaces(payload, position);
+            int keyStart = position + 1;
+            position = skipString(payload, position);
+            int keyEnd = position - 1;
+            position = skipWhitespaces(payload, position);
+            position = expect(payload, position, ':');
+            position = skipWhitespaces(payload, position);
+
+            int valueStart = position;
+            position = skipValue(payload, position);
+
+            if (isKey(payload, keyStart, keyEnd, MESSAGE_TYPE)) {
+                if (payload.charAt(valueStart) != '"') {
+                    throw new MessageFormatException("Message type must be a string");
+                }
+                type = readMessageType(payload, valueStart + 1, position - 1);
+            } else if (isKey(payload, keyStart, keyEnd, DATA)) {
+                data = payload.charAt(valueStart) == '"' ? readString(payload, valueStart + 1, position - 1) : payload.substring(valueStart, position);
+            }
+
+            position = skipWhitespaces(payload, position);
+            if (position < payload.length() && payload.charAt(position) == ',') {
+                position++;
+                continue;
+            }
+            expect(payload, position, '}');
+            break;
+        }
+
+        if (type == null) {
+            throw new MissingParameterException("Missing message type header");
+        }
+
+        return new IncomingMessage(type, data);
+    }
+
+    @Override
+    public TextMessage encode(String messageType, String messageData) {
+        Map<String, TextMessage> preEncodedMessagesOfType = preEncodedMessages.get(messageType);
+        if (preEncodedMessagesOfType != null) {
+            TextMessage preEncodedMessage = preEncodedMessagesOfType.get(messageData);
+            if (preEncodedMessage != null) {
+                return preEncodedMessage;
+            }
+        }
+
+        return new TextMessage(write(messageType, messageData));
+    }
+
+    @Override
+    public TextMessage encodeSessionRejection(String rejectionReason, long retryAfter) {
+        if (retryAfter <= 0) {
+            return encode(SESSION_REJECTED, rejectionReason);
+        }
+
+        StringBuilder buffer = writeBuffer.get();
+        buffer.setLength(0);
+        writeEnvelope(buffer, SESSION_REJECTED, rejectionReason);
+        buffer.setLength(buffer.length() - 1);
+        buffer.append(",\"").append(RETRY_AFTER).append("\":").append(retryAfter).append('}');
+        return new TextMessage(buffer.toString());
+    }
+
+    // token is sent next to the data, so the data is the same as for the clients which don't resume games
+    @Override
+    public TextMessage encodeWithResumeToken(String messageType, String messageData, String resumeToken) {
+        StringBuilder buffer = writeBuffer.get();
+        buffer.setLength(0);
+        writeEnvelope(buffer, messageType, messageData);
+        buffer.setLength(buffer.length() - 1);
+        buffer.append(",\"").append(RESUME_TOKEN).append("\":");
+        writeString(buffer, resumeToken);
+        buffer.append('}');
+        return new TextMessage(buffer.toString());
+    }
+
+    private void preEncode(String messageType, String messageData) {
+        preEncodedMessages.computeIfAbsent(messageType, type -> new HashMap<>()).put(messageData, new TextMessage(write(messageType, messageData)));
+    }
+
+    private String write(String messageType, String messageData) {
+        StringBuilder buffer = writeBuffer.get();
+        buffer.setLength(0);
+        writeEnvelope(buffer, messageType, messageData);
+        return buffer.toString();
+    }
+
+    private static void writeEnvelope(StringBuilder buffer, String messageType, String messageData) {
+        buffer.append("{\"").append(MESSAGE_TYPE).append("\":");
+        writeString(buffer, messageType);
+        buffer.append(",\"").append(DATA).append("\":");
+        writeString(buffer, messageData);
+        buffer.append('}');
+    }
+
+    private static void writeString(StringBuilder buffer, String value) {
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            switch (character) {
+                case '"' -> buffer.append("\\\"");
+                case '\\' -> buffer.append("\\\\");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                case '\t' -> buffer.append("\\t");
+                case '\b' -> buffer.append("\\b");
+                case '\f' -> buffer.append("\\f");
+                default -> {
+                    if (character < 0x20) {
+                        buffer.append("\\u00").append(Character.forDigit(character >> 4, 16)).append(Character.forDigit(character & 0xF, 16));
+                    } else {
+                        buffer.append(character);
+                    }
+                }
+            }
+        }
+        buffer.append('"');
+    }
+
+    private static String readMessageType(String payload, int start, int end) {
+        for (String clientMessageType : CLIENT_MESSAGE_TYPES) {
+            if (clientMessageType.length() == end - start && payload.startsWith(clientMessageType, start)) {
+                return clientMessageType;
+            }
+        }
+
+        return readString(payload, start, end); // unknown type, reported by the handler
+    }
+
+    private static String readString(String payload, int start, int end) {
+        int firstEscape = payload.indexOf('\\', start);
+        if (firstEscape < 0 || firstEscape >= end) {
+            return payload.substring(start, end);
+        }
+
+        StringBuilder value = new StringBuilder(end - start);
+        value.append(payload, start, firstEscape);
+        for (int i = firstEscape; i < end; i++) {
+            char character = payload.charAt(i);
+            if (character != '\\') {
+                value.append(character);
+                continue;
+            }
+
+            char escaped = payload.charAt(++i);
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append(escaped);
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= end) {
+                        throw new MessageFormatException("Malformed unicode escape in message");
+                    }
+                    value.append((char) Integer.parseInt(payload, i + 1, i + 5, 16));
+                    i += 4;
+                }
+                default -> throw new MessageFormatException("Illegal escape character in message: " + escaped);
+            }
+        }
+        return value.toString();
+    }
+
+    private static boolean isKey(String payload, int keyStart, int keyEnd, String key) {
+        return key.length() == keyEnd - keyStart && payload.startsWith(key, keyStart);
+    }
+
+    // returns position right after the closing quote
+    private static int skipString(String payload, int position) {
+        expect(payload, position, '"');
+        for (int i = position + 1; i < payload.length(); i++) {
+            char character = payload.charAt(i);
+            if (character == '\\') {
+                i++;
+            } else if (character == '"') {
+                return i + 1;
+            }
+        }
+        throw new MessageFormatException("Unterminated string in message");
+    }
+
+    // returns position right after the value, nested objects and arrays are skipped as a whole
+    private static int skipValue(String payload, int position) {
+        if (position >= payload.length()) {
+            throw new MessageFormatException("Missing value in message");
+        }
+
+        char first = payload.charAt(position);
+        if (first == '"') {
+            return skipString(payload, position);
+        }
+
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            for (int i = position; i < payload.length(); i++) {
+                char character = payload.charAt(i);
+                if (character == '"') {
+                    i = skipString(payload, i) - 1;
+                } else if (character == '{' || character == '[') {
+                    depth++;
+                } else if ((character == '}' || character == ']') && --depth == 0) {
+                    return i + 1;
+                }
+            }
+            throw new MessageFormatException("Unterminated value in message");
+        }
+
+        int i = position;
+        while (i < payload.length() && ",}] \t\r\n".indexOf(payload.charAt(i)) < 0) {
+            i++;
+        }
+        if (i == position) {
+            throw new MessageFormatException("Missing value in message");
+        }
+        return i;
+    }
+
+    private static int skipWhitespaces(String payload, int position) {
+        while (position < payload.length() && Character.isWhitespace(payload.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int expect(String payload, int position, char expected) {
+        if (position >= payload.length() || payload.charAt(position) != expected) {
+            throw new MessageFormatException("Malformed message, expected '" + expected + "' at position " + position);
+        }
+        return position + 1;
+    }
+}
@@ -0,0 +1,18 @@
+package pl.lukasz94w.codec;
+
+import org.springframework.web.socket.WebSocketMessage;
+
+// Wire format of the game protocol. Message types and data are the same for every codec
+// (constants from ClientMessageTypeValue, ServerMessageTypeValue and ServerMessageDataValue).
+public interface MessageCodec {
+
+    IncomingMessage decode(WebSocketMessage<?> message);
+
+    WebSocketMessage<?> encode(String messageType, String messageData);
+
+    // SESSION_REJECTED with the time (in s) after which the client may retry, 0 if retrying won't help
+    WebSocketMessage<?> encodeSessionRejection(String rejectionReason, long retryAfter);
+
+    // GAME_STARTED and GAME_RESTORED with the token the player can resume the game with (see GameServer.resumeSeat)
+    WebSocketMessage<?> encodeWithResumeToken(String messageType, String messageData, String resumeToken);
+}
@@ -0,0 +1,45 @@
+package pl.lukasz94w.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "pl.lukasz94w.admission")
+@Getter
+@Setter
+public class AdmissionControlConfig {
+
+    // bounds and the starting value of the adaptive limit of active games
+    public Integer minLimit;
+
+    public Integer initialLimit;
+
+    public Integer maxLimit;
+
+    // how often (in ms) the limit is adjusted
+    public Long adjustmentInterval;
+
+    // overload thresholds: max time (in ms) a message waited for and was handled by the event loop,
+    // number of tasks queued in the event loops, number of messages waiting in the outbound queues
+    // and system CPU load (0.0 - 1.0)
+    public Long maxEventLoopLatency;
+
+    public Integer maxEventLoopBacklog;
+
+    public Integer maxSendBacklog;
+
+    public Double maxCpuLoad;
+
+    // limit is multiplied by it when the server is overloaded
+    public Double decreaseFactor;
+
+    // handshakes of the single user: burst allowed and the time (in ms) after which one more handshake is allowed
+    public Integer handshakeBurst;
+
+    public Long handshakeRefillPeriod;
+
+    // base retry-after hint (in s) for the players rejected because of the limit
+    public Long retryAfter;
+}
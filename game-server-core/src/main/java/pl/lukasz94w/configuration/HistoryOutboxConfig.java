@@ -0,0 +1,28 @@
+package pl.lukasz94w.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "pl.lukasz94w.history-outbox")
+@Getter
+@Setter
+public class HistoryOutboxConfig {
+
+    // number of finished games kept in memory, above that games are spilled to the file
+    public Integer capacity;
+
+    public Integer batchSize;
+
+    // delays (in ms) between retries when history-service is not available
+    public Long initialBackoff;
+
+    public Long maxBackoff;
+
+    // failed sends of the batch after which its unsent games are spilled to the file
+    public Integer maxRetries;
+
+    public String spillFile;
+}
@@ -6,19 +6,26 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import pl.lukasz94w.history.FinishedGamesOutbox;
+import pl.lukasz94w.metrics.GameServerMetrics;
 
 @Configuration
 public class HttpClientConfig {
 
-    @Value("${pl.lukasz94w.historyServiceSaveGameUrl}")
-    public String saveGameUrl;
+    @Value("${pl.lukasz94w.historyServiceSaveGamesUrl}")
+    public String saveGamesUrl;
 
     @LoadBalanced
     @Bean
     public RestTemplate historyServiceClient() {
-        DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory(saveGameUrl);
+        DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory(saveGamesUrl);
         RestTemplate restTemplate = new RestTemplate();
         restTemplate.setUriTemplateHandler(uriBuilderFactory);
         return restTemplate;
     }
+
+    @Bean(destroyMethod = "stop")
+    public FinishedGamesOutbox finishedGamesOutbox(RestTemplate historyServiceClient, HistoryOutboxConfig historyOutboxConfig, GameServerMetrics gameServerMetrics) {
+        return new FinishedGamesOutbox(historyServiceClient, historyOutboxConfig, gameServerMetrics);
+    }
 }
@@ -0,0 +1,24 @@
+package pl.lukasz94w.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "pl.lukasz94w.journal")
+@Getter
+@Setter
+public class JournalConfig {
+
+    public String file;
+
+    // size (in bytes) of the memory-mapped journal, it's compacted to the snapshot once half full
+    public Integer fileSize;
+
+    // delay (in ms) after which the journal is compacted if any game ended since the last snapshot
+    public Long snapshotInterval;
+
+    // time (in ms) the recovered games wait after the restart for their players to reconnect
+    public Long recoveryTimeout;
+}
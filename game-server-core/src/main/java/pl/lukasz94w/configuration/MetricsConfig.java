@@ -0,0 +1,15 @@
+package pl.lukasz94w.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.lukasz94w.metrics.GameServerMetrics;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public GameServerMetrics gameServerMetrics(MeterRegistry meterRegistry) {
+        return new GameServerMetrics(meterRegistry);
+    }
+}
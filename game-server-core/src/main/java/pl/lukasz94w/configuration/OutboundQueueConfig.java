@@ -0,0 +1,22 @@
+package pl.lukasz94w.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import pl.lukasz94w.session.OverflowPolicy;
+
+@Configuration
+@ConfigurationProperties(prefix = "pl.lukasz94w.outbound-queue")
+@Getter
+@Setter
+public class OutboundQueueConfig {
+
+    // bytes of the messages buffered for a single session, above that the overflow policy is applied
+    public Integer bufferSizeLimit;
+
+    // time (in ms) a single send can take before the session is treated as the slow consumer and closed
+    public Long sendTimeLimit;
+
+    public OverflowPolicy overflowPolicy;
+}
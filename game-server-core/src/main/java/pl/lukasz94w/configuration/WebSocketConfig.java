@@ -1,14 +1,31 @@
 package pl.lukasz94w.configuration;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 import pl.lukasz94w.GameServer;
+import pl.lukasz94w.admission.AdmissionController;
+import pl.lukasz94w.codec.BinaryMessageCodec;
+import pl.lukasz94w.codec.JsonMessageCodec;
+import pl.lukasz94w.eventloop.EventLoopGroup;
+import pl.lukasz94w.game.GameRegistry;
+import pl.lukasz94w.history.FinishedGamesOutbox;
 import pl.lukasz94w.interceptor.LoggingHandshakeInterceptor;
+import pl.lukasz94w.journal.GameJournal;
+import pl.lukasz94w.journal.RecoveredGames;
+import pl.lukasz94w.matchmaking.Matchmaker;
+import pl.lukasz94w.metrics.GameServerGauges;
+import pl.lukasz94w.metrics.GameServerMetrics;
+import pl.lukasz94w.scheduler.HashedTimingWheel;
+import pl.lukasz94w.session.OutboundQueues;
+import pl.lukasz94w.session.RejectedSessionsReaper;
 
 @Configuration
 @EnableWebSocket
@@ -18,12 +35,24 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     private final WebSocketServerConfig webSocketServerConfig;
 
-    private final RestTemplate historyServiceClient;
+    private final AdmissionControlConfig admissionControlConfig;
 
-    public WebSocketConfig(LoggingHandshakeInterceptor loggingHandshakeInterceptor, WebSocketServerConfig webSocketServerConfig, RestTemplate historyServiceClient) {
+    private final OutboundQueueConfig outboundQueueConfig;
+
+    private final JournalConfig journalConfig;
+
+    private final FinishedGamesOutbox finishedGamesOutbox;
+
+    private final GameServerMetrics gameServerMetrics;
+
+    public WebSocketConfig(LoggingHandshakeInterceptor loggingHandshakeInterceptor, WebSocketServerConfig webSocketServerConfig, AdmissionControlConfig admissionControlConfig, OutboundQueueConfig outboundQueueConfig, JournalConfig journalConfig, FinishedGamesOutbox finishedGamesOutbox, GameServerMetrics gameServerMetrics) {
         this.loggingHandshakeInterceptor = loggingHandshakeInterceptor;
         this.webSocketServerConfig = webSocketServerConfig;
-        this.historyServiceClient = historyServiceClient;
+        this.admissionControlConfig = admissionControlConfig;
+        this.outboundQueueConfig = outboundQueueConfig;
+        this.journalConfig = journalConfig;
+        this.finishedGamesOutbox = finishedGamesOutbox;
+        this.gameServerMetrics = gameServerMetrics;
     }
 
     @Override
@@ -36,10 +65,80 @@ public class WebSocketConfig implements WebSocketConfigurer {
                 .setHeartbeatTime(25000)
                 .setDisconnectDelay(5000)
                 .setClientLibraryUrl("/webjars/sockjs-client/1.1.2/sockjs.js");
+
+        // plain websocket (SockJS frames are text only), binary protocol is used if the client asks for its subprotocol
+        registry.addHandler(webSocketHandler(), "/websocket/raw")
+                .setAllowedOrigins("http://localhost:3000")
+                .setHandshakeHandler(subprotocolNegotiatingHandshakeHandler())
+                .addInterceptors(loggingHandshakeInterceptor);
+    }
+
+    private DefaultHandshakeHandler subprotocolNegotiatingHandshakeHandler() {
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        handshakeHandler.setSupportedProtocols(BinaryMessageCodec.SUBPROTOCOL, JsonMessageCodec.SUBPROTOCOL);
+        return handshakeHandler;
     }
 
     @Bean
     public WebSocketHandler webSocketHandler() {
-        return new GameServer(webSocketServerConfig, historyServiceClient);
+        return new GameServer(webSocketServerConfig, gameRegistry(), finishedGamesOutbox, matchmaker(), eventLoopGroup(), timingWheel(), rejectedSessionsReaper(), admissionController(), outboundQueues(), gameServerMetrics, gameJournal(), recoveredGames());
+    }
+
+    @Bean
+    public GameRegistry gameRegistry() {
+        return new GameRegistry();
+    }
+
+    @Bean
+    public Matchmaker matchmaker() {
+        int numberOfShards = webSocketServerConfig.matchmakingShards > 0 ? webSocketServerConfig.matchmakingShards : Runtime.getRuntime().availableProcessors();
+        return new Matchmaker(numberOfShards, gameServerMetrics);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public EventLoopGroup eventLoopGroup() {
+        int numberOfEventLoops = webSocketServerConfig.eventLoops > 0 ? webSocketServerConfig.eventLoops : Runtime.getRuntime().availableProcessors();
+        return new EventLoopGroup(numberOfEventLoops);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public HashedTimingWheel timingWheel() {
+        return new HashedTimingWheel(webSocketServerConfig.timingWheelTickDuration, webSocketServerConfig.timingWheelSize);
+    }
+
+    @Bean
+    public RejectedSessionsReaper rejectedSessionsReaper() {
+        return new RejectedSessionsReaper(timingWheel(), webSocketServerConfig.rejectedSessionCloseDelay);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public AdmissionController admissionController() {
+        return new AdmissionController(admissionControlConfig, eventLoopGroup(), outboundQueues(), timingWheel());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OutboundQueues outboundQueues() {
+        return new OutboundQueues(outboundQueueConfig, gameServerMetrics);
+    }
+
+    @Bean(destroyMethod = "stop")
+    public GameJournal gameJournal() {
+        return new GameJournal(journalConfig);
+    }
+
+    // published before the web server stops and closes the sessions
+    @EventListener(ContextClosedEvent.class)
+    public void freezeGameJournal() {
+        gameJournal().freeze();
+    }
+
+    @Bean
+    public RecoveredGames recoveredGames() {
+        return new RecoveredGames(gameJournal(), journalConfig.recoveryTimeout);
+    }
+
+    @Bean
+    public MeterBinder gameServerGauges() {
+        return new GameServerGauges(gameRegistry(), matchmaker(), eventLoopGroup(), outboundQueues(), admissionController(), finishedGamesOutbox, gameJournal());
     }
-}
\ No newline at end of file
+}
@@ -11,7 +11,25 @@ import org.springframework.context.annotation.Configuration;
 @Setter
 public class WebSocketServerConfig {
 
-    public Integer maxNumberOfGames;
-
     public Integer requiredHeartbeatFrequency;
+
+    // 0 means one lobby shard per available processor
+    public Integer matchmakingShards;
+
+    // 0 means one event loop per available processor
+    public Integer eventLoops;
+
+    // resolution (in ms) and number of slots of the wheel scheduling heartbeat timeouts and delayed closes
+    public Integer timingWheelTickDuration;
+
+    public Integer timingWheelSize;
+
+    // time (in ms) given to the rejected client for closing the session itself
+    public Integer rejectedSessionCloseDelay;
+
+    // time (in ms) the seat of the disconnected player is held for the resume, 0 ends the game at once
+    public Long resumeGracePeriod;
+
+    // messages kept for the disconnected player to be replayed after the resume
+    public Integer resumeBufferSize;
 }
@@ -20,4 +20,7 @@ public class FinishedGameData {
     private ZonedDateTime gameEndedUTC;
 
     private Integer numberOfWinningMovements;
+
+    // packed moves (see MoveLog), sent as base64
+    private byte[] moveLog;
 }
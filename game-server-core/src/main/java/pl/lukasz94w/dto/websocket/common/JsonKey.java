@@ -8,4 +8,8 @@ public class JsonKey {
     public final static String MESSAGE_TYPE = "messageType";
 
     public final static String DATA = "data";
+
+    public final static String RETRY_AFTER = "retryAfter";
+
+    public final static String RESUME_TOKEN = "resumeToken";
 }
@@ -12,4 +12,6 @@ public class ClientMessageTypeValue {
     public final static String HEARTBEAT = "heartbeat";
 
     public final static String PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION = "playerReceivedGameUpdateConfirmation";
+
+    public final static String PLAYER_MOVE = "playerMove";
 }
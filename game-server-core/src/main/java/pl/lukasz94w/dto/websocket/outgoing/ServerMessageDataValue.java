@@ -0,0 +1,15 @@
+package pl.lukasz94w.dto.websocket.outgoing;
+
+public class ServerMessageDataValue {
+
+    private ServerMessageDataValue() {
+    }
+
+    public final static String FIRST_PLAYER = "1st player";
+
+    public final static String SECOND_PLAYER = "2nd player";
+
+    public final static String OPPONENT_RECEIVED_UPDATE = "Opponent received the update";
+
+    public final static String OPPONENT_DISCONNECTED = "Your opponent has disconnected";
+}
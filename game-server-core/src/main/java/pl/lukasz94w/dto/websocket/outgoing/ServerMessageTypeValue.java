@@ -20,4 +20,10 @@ public class ServerMessageTypeValue {
     public final static String PAIRED_SESSION_DISCONNECTED = "pairedSessionDisconnected";
 
     public final static String SESSION_REJECTED = "sessionRejected";
+
+    public final static String MOVE_APPLIED = "moveApplied";
+
+    public final static String MOVE_REJECTED = "moveRejected";
+
+    public final static String GAME_RESTORED = "gameRestored";
 }
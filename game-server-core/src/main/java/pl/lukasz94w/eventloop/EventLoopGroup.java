@@ -0,0 +1,72 @@
+package pl.lukasz94w.eventloop;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Set of single-threaded executors. Every task is routed by its key (i.e. game id) to always the same event loop,
+// so the tasks related to one game are processed sequentially, in the order of submission, without any locking.
+public class EventLoopGroup {
+
+    private final Logger logger = LoggerFactory.getLogger(EventLoopGroup.class);
+
+    private final List<ExecutorService> eventLoops;
+
+    private final LongAdder numberOfPendingTasks;
+
+    // time from the submission to the end of the task, the longest one since the last read
+    private final LongAccumulator maxTaskLatency;
+
+    public EventLoopGroup(int numberOfEventLoops) {
+        eventLoops = new ArrayList<>(numberOfEventLoops);
+        for (int i = 0; i < numberOfEventLoops; i++) {
+            eventLoops.add(Executors.newSingleThreadExecutor(Thread.ofPlatform().name("game-event-loop-" + i).factory()));
+        }
+        numberOfPendingTasks = new LongAdder();
+        maxTaskLatency = new LongAccumulator(Long::max, 0);
+    }
+
+    public void execute(long key, EventLoopTask task) {
+        long submittedAt = System.nanoTime();
+        numberOfPendingTasks.increment();
+        eventLoops.get((int) Math.floorMod(key, eventLoops.size())).execute(() -> {
+            numberOfPendingTasks.decrement();
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("Exception in event loop task: {}", ExceptionUtils.getStackTrace(e));
+            } finally {
+                maxTaskLatency.accumulate(System.nanoTime() - submittedAt);
+            }
+        });
+    }
+
+    public long getNumberOfPendingTasks() {
+        return numberOfPendingTasks.sum();
+    }
+
+    public long getAndResetMaxTaskLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxTaskLatency.getThenReset());
+    }
+
+    public void shutdown() {
+        eventLoops.forEach(ExecutorService::shutdown);
+        try {
+            for (ExecutorService eventLoop : eventLoops) {
+                if (!eventLoop.awaitTermination(5, TimeUnit.SECONDS)) {
+                    eventLoop.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
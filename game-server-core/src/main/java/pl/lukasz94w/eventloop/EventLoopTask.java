@@ -0,0 +1,7 @@
+package pl.lukasz94w.eventloop;
+
+@FunctionalInterface
+public interface EventLoopTask {
+
+    void run() throws Exception;
+}
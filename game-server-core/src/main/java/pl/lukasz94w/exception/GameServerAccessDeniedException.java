@@ -1,8 +1,22 @@
 package pl.lukasz94w.exception;
 
+import lombok.Getter;
+
+@Getter
 public class GameServerAccessDeniedException extends RuntimeException {
 
-    public GameServerAccessDeniedException(String reason) {
+    private final RejectionReason rejectionReason;
+
+    // seconds after which the client may try to connect again, 0 if retrying won't help
+    private final long retryAfter;
+
+    public GameServerAccessDeniedException(RejectionReason rejectionReason, String reason) {
+        this(rejectionReason, reason, 0);
+    }
+
+    public GameServerAccessDeniedException(RejectionReason rejectionReason, String reason, long retryAfter) {
         super(reason);
+        this.rejectionReason = rejectionReason;
+        this.retryAfter = retryAfter;
     }
 }
@@ -0,0 +1,8 @@
+package pl.lukasz94w.exception;
+
+public class MessageFormatException extends RuntimeException {
+
+    public MessageFormatException(String message) {
+        super(message);
+    }
+}
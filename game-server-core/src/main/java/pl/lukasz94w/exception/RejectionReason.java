@@ -0,0 +1,12 @@
+package pl.lukasz94w.exception;
+
+public enum RejectionReason {
+    MISSING_USER_NAME,
+    HANDSHAKE_RATE_LIMITED,
+    CAPACITY_EXCEEDED,
+    ALREADY_WAITING,
+    ALREADY_IN_GAME,
+    UNKNOWN_GAME_SETTINGS,
+    RECOVERED_GAME_EXPIRED,
+    UNKNOWN_RESUME_TOKEN
+}
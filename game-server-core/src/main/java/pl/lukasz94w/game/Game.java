@@ -1,19 +1,69 @@
 package pl.lukasz94w.game;
 
 import lombok.Getter;
+import pl.lukasz94w.exception.TictactoeException;
 import pl.lukasz94w.player.Player;
-import pl.lukasz94w.tictactoe.Tictactoe;
+import pl.lukasz94w.tictactoe.Board;
 import pl.lukasz94w.tictactoe.TictactoeFactory;
 
 @Getter
 public class Game {
+    private final long id;
     private final Player firstPlayer;
     private final Player secondPlayer;
-    private final Tictactoe tictactoe;
+    private final GameSettings gameSettings;
+    private final Board board;
+    private final MoveLog moveLog;
 
-    Game(Player firstPlayer, Player secondPlayer) {
+    // state of the authoritative games, modified only by the event loop owning the game
+    private long lastMoveSequenceNumber;
+    private String lastMove;
+    private Player playerToMove;
+    private boolean finished;
+
+    Game(long id, Player firstPlayer, Player secondPlayer, GameSettings gameSettings) {
+        this.id = id;
         this.firstPlayer = firstPlayer;
         this.secondPlayer = secondPlayer;
-        tictactoe = TictactoeFactory.createTictactoe();
+        this.gameSettings = gameSettings;
+        board = TictactoeFactory.createBoard(gameSettings.boardVariant());
+        moveLog = new MoveLog();
+        playerToMove = firstPlayer;
+    }
+
+    // Marks the square for the player and passes the turn to the opponent. Returns the applied move in the
+    // "sequenceNumber:X4" form, the same one is kept as the last move to answer retransmissions.
+    public String applyMove(Player player, String squareNumber) {
+        if (finished) {
+            throw new TictactoeException("Game has already ended");
+        }
+        if (player != playerToMove) {
+            throw new TictactoeException("It's not your turn");
+        }
+
+        return mark(getSymbolOf(player), squareNumber);
+    }
+
+    // Marks the square without checking the turn: moves of the relayed games (the turn is kept by the clients)
+    // and the ones recovered from the journal (validated when they were made for the first time).
+    public void markSquare(String squareValue, String squareNumber) {
+        mark(squareValue, squareNumber);
+    }
+
+    public void finish() {
+        finished = true;
+    }
+
+    public String getSymbolOf(Player player) {
+        return player == firstPlayer ? "X" : "O";
+    }
+
+    private String mark(String squareValue, String squareNumber) {
+        board.updateState(squareNumber, squareValue);
+        moveLog.add(Integer.parseInt(squareNumber), squareValue.equals("X"));
+        lastMoveSequenceNumber++;
+        lastMove = lastMoveSequenceNumber + ":" + squareValue + squareNumber;
+        playerToMove = squareValue.equals("X") ? secondPlayer : firstPlayer;
+        return lastMove;
     }
 }
@@ -2,12 +2,26 @@ package pl.lukasz94w.game;
 
 import pl.lukasz94w.player.Player;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class GameFactory {
 
+    private static final AtomicLong gameIdSequence = new AtomicLong();
+
     private GameFactory() {
     }
 
-    public static Game createGame(Player firstPlayer, Player secondPlayer) {
-        return new Game(firstPlayer, secondPlayer);
+    public static Game createGame(Player firstPlayer, Player secondPlayer, GameSettings gameSettings) {
+        return new Game(gameIdSequence.incrementAndGet(), firstPlayer, secondPlayer, gameSettings);
+    }
+
+    // recovered game keeps its id, so the journal records written before the restart still refer to it
+    public static Game restoreGame(long gameId, Player firstPlayer, Player secondPlayer, GameSettings gameSettings) {
+        return new Game(gameId, firstPlayer, secondPlayer, gameSettings);
+    }
+
+    // new games mustn't take the ids of the recovered ones
+    public static void skipGameIdsUpTo(long gameId) {
+        gameIdSequence.accumulateAndGet(gameId, Math::max);
     }
 }
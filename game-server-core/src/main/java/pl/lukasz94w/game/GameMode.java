@@ -0,0 +1,15 @@
+package pl.lukasz94w.game;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum GameMode {
+    // moves are relayed between the players and applied by the server after the opponent's confirmation
+    RELAYED,
+    // moves are validated and applied by the server immediately, then sent to both players
+    AUTHORITATIVE;
+
+    public static Optional<GameMode> fromName(String name) {
+        return Arrays.stream(values()).filter(mode -> mode.name().equalsIgnoreCase(name)).findFirst();
+    }
+}
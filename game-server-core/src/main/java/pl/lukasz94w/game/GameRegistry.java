@@ -0,0 +1,94 @@
+package pl.lukasz94w.game;
+
+import org.springframework.web.socket.WebSocketSession;
+import pl.lukasz94w.player.Player;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Index of the active games. Every player is reachable by its session id, its name and its resume token, so lookups
+// done on each incoming frame, admission checks, resumes and removals are constant-time operations.
+public class GameRegistry {
+
+    private final Set<Game> games;
+
+    private final Map<String, Seat> seatsBySessionId;
+
+    private final Map<String, Seat> seatsByPlayerName;
+
+    private final Map<String, Seat> seatsByResumeToken;
+
+    public GameRegistry() {
+        games = ConcurrentHashMap.newKeySet();
+        seatsBySessionId = new ConcurrentHashMap<>();
+        seatsByPlayerName = new ConcurrentHashMap<>();
+        seatsByResumeToken = new ConcurrentHashMap<>();
+    }
+
+    public void register(Game game) {
+        Player firstPlayer = game.getFirstPlayer();
+        Player secondPlayer = game.getSecondPlayer();
+
+        games.add(game);
+        addSeat(new Seat(game, firstPlayer, secondPlayer));
+        addSeat(new Seat(game, secondPlayer, firstPlayer));
+    }
+
+    public Optional<Seat> findSeat(WebSocketSession session) {
+        return Optional.ofNullable(seatsBySessionId.get(session.getId()));
+    }
+
+    public Optional<Seat> findSeatByResumeToken(String resumeToken) {
+        return Optional.ofNullable(seatsByResumeToken.get(resumeToken));
+    }
+
+    // Resuming session is bound to the seat right away, so its messages are routed to the game (and handled after
+    // the resume), the dropped session is unbound once the player is moved to the new one.
+    public void bind(Seat seat, WebSocketSession session) {
+        seatsBySessionId.put(session.getId(), seat);
+    }
+
+    public void unbind(Seat seat, WebSocketSession session) {
+        seatsBySessionId.remove(session.getId(), seat);
+    }
+
+    public boolean hasGame(String playerName) {
+        return seatsByPlayerName.containsKey(playerName);
+    }
+
+    // Returns the seat of the calling session only if this call was the one which removed the game,
+    // so concurrent disconnections of both players don't notify anyone twice.
+    public Optional<Seat> remove(WebSocketSession session) {
+        Seat seat = seatsBySessionId.get(session.getId());
+        if (seat == null || !games.remove(seat.getGame())) {
+            return Optional.empty();
+        }
+
+        removeSeatOf(seat.getPlayer(), seat.getGame());
+        removeSeatOf(seat.getOpponent(), seat.getGame());
+        return Optional.of(seat);
+    }
+
+    public boolean isRegistered(Game game) {
+        return games.contains(game);
+    }
+
+    public int numberOfGames() {
+        return games.size();
+    }
+
+    private void addSeat(Seat seat) {
+        Player player = seat.getPlayer();
+        seatsBySessionId.put(player.getSession().getId(), seat);
+        seatsByPlayerName.put(player.getName(), seat);
+        seatsByResumeToken.put(player.getResumeToken(), seat);
+    }
+
+    private void removeSeatOf(Player player, Game game) {
+        seatsBySessionId.computeIfPresent(player.getSession().getId(), (sessionId, seat) -> seat.getGame() == game ? null : seat);
+        seatsByPlayerName.computeIfPresent(player.getName(), (playerName, seat) -> seat.getGame() == game ? null : seat);
+        seatsByResumeToken.remove(player.getResumeToken());
+    }
+}
@@ -0,0 +1,9 @@
+package pl.lukasz94w.game;
+
+import pl.lukasz94w.tictactoe.BoardVariant;
+
+// Chosen by the player at handshake, only the players with equal settings are paired.
+public record GameSettings(BoardVariant boardVariant, GameMode gameMode) {
+
+    public static final GameSettings DEFAULT = new GameSettings(BoardVariant.TICTACTOE, GameMode.RELAYED);
+}
@@ -0,0 +1,47 @@
+package pl.lukasz94w.game;
+
+import java.util.Arrays;
+
+// Moves of the game packed as they are made, sent to history-service with the finished game. Every move is the square
+// number (unsigned byte, boards have at most 225 squares) followed by the varint (7 bits per byte, least significant
+// group first, high bit set if more bytes follow) of the time since the previous move (or the start of the game) in ms,
+// shifted left by one with the lowest bit telling the player: 0 for the first one, 1 for the second one. A move made
+// within a few seconds takes 3 bytes.
+public class MoveLog {
+
+    private byte[] encodedMoves;
+
+    private int length;
+
+    private long lastMoveAt;
+
+    MoveLog() {
+        encodedMoves = new byte[32];
+        lastMoveAt = System.currentTimeMillis();
+    }
+
+    void add(int squareNumber, boolean firstPlayer) {
+        long now = System.currentTimeMillis();
+        long timeSinceLastMove = Math.max(0, now - lastMoveAt);
+        lastMoveAt = now;
+
+        ensureCapacity(11);
+        encodedMoves[length++] = (byte) squareNumber;
+        long value = timeSinceLastMove << 1 | (firstPlayer ? 0 : 1);
+        while ((value & ~0x7FL) != 0) {
+            encodedMoves[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        encodedMoves[length++] = (byte) value;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(encodedMoves, length);
+    }
+
+    private void ensureCapacity(int additionalBytes) {
+        if (length + additionalBytes > encodedMoves.length) {
+            encodedMoves = Arrays.copyOf(encodedMoves, Math.max(encodedMoves.length * 2, length + additionalBytes));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package pl.lukasz94w.game;
+
+import lombok.Getter;
+import pl.lukasz94w.player.Player;
+
+// Handle of a single player's place in a game, it allows to reach both the game and the opponent without scanning
+@Getter
+public class Seat {
+    private final Game game;
+    private final Player player;
+    private final Player opponent;
+
+    Seat(Game game, Player player, Player opponent) {
+        this.game = game;
+        this.player = player;
+        this.opponent = opponent;
+    }
+}
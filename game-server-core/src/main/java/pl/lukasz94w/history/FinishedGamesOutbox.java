@@ -0,0 +1,278 @@
+package pl.lukasz94w.history;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import pl.lukasz94w.configuration.HistoryOutboxConfig;
+import pl.lukasz94w.dto.http.request.FinishedGameData;
+import pl.lukasz94w.metrics.GameServerMetrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Finished games are handed over to the bounded in-memory buffer and sent to history-service in batches by
+// the background dispatcher, so a slow or unavailable history-service doesn't delay the game threads.
+// Failed batches are retried with exponential backoff, games which don't fit into the buffer (or are still
+// unsent after maxRetries, or during the shutdown) are appended to the local file and resent when the buffer gets
+// empty.
+public class FinishedGamesOutbox {
+
+    // responses of history-service to the games it won't ever accept (412 is its GameException)
+    private static final Set<Integer> INVALID_GAME_STATUSES = Set.of(400, 412, 422);
+
+    private final Logger logger = LoggerFactory.getLogger(FinishedGamesOutbox.class);
+
+    private final ObjectMapper objectMapper;
+
+    private final RestTemplate historyServiceClient;
+
+    private final HistoryOutboxConfig historyOutboxConfig;
+
+    private final GameServerMetrics gameServerMetrics;
+
+    private final BlockingQueue<FinishedGameData> buffer;
+
+    private final Path spillFile;
+
+    private final Path replayedSpillFile;
+
+    private final Object spillFileLock;
+
+    private final Thread dispatcherThread;
+
+    private volatile boolean running;
+
+    public FinishedGamesOutbox(RestTemplate historyServiceClient, HistoryOutboxConfig historyOutboxConfig, GameServerMetrics gameServerMetrics) {
+        this.historyServiceClient = historyServiceClient;
+        this.historyOutboxConfig = historyOutboxConfig;
+        this.gameServerMetrics = gameServerMetrics;
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        buffer = new ArrayBlockingQueue<>(historyOutboxConfig.capacity);
+        spillFile = Path.of(historyOutboxConfig.spillFile);
+        replayedSpillFile = Path.of(historyOutboxConfig.spillFile + ".replayed");
+        spillFileLock = new Object();
+        running = true;
+        dispatcherThread = Thread.ofPlatform().name("history-outbox-dispatcher").start(this::dispatch);
+    }
+
+    public void add(FinishedGameData finishedGameData) {
+        if (!buffer.offer(finishedGameData)) {
+            logger.warn("History outbox buffer is full, spilling the game to the file");
+            spill(List.of(finishedGameData));
+        }
+    }
+
+    public int getNumberOfBufferedGames() {
+        return buffer.size();
+    }
+
+    public void stop() {
+        running = false;
+        dispatcherThread.interrupt();
+        try {
+            dispatcherThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch() {
+        List<FinishedGameData> polledGames = new ArrayList<>(historyOutboxConfig.batchSize);
+        List<String> batch = new ArrayList<>(historyOutboxConfig.batchSize);
+        long backoff = historyOutboxConfig.initialBackoff;
+        int retries = 0;
+
+        try {
+            while (running) {
+                boolean sent;
+                if (batch.isEmpty()) {
+                    FinishedGameData finishedGameData = buffer.poll(1, TimeUnit.SECONDS);
+                    if (finishedGameData == null) {
+                        sent = resendSpilledGames();
+                    } else {
+                        polledGames.add(finishedGameData);
+                        buffer.drainTo(polledGames, historyOutboxConfig.batchSize - 1);
+                        batch.addAll(serialize(polledGames));
+                        polledGames.clear();
+                        sent = batch.isEmpty() || send(batch);
+                    }
+                } else {
+                    sent = send(batch);
+                }
+
+                if (sent) {
+                    batch.clear();
+                    backoff = historyOutboxConfig.initialBackoff;
+                    retries = 0;
+                } else {
+                    // so the games which keep failing don't block the newer ones, they are retried from the file
+                    if (!batch.isEmpty() && ++retries > historyOutboxConfig.maxRetries) {
+                        logger.warn("Batch not sent after {} retries, spilling its {} unsent games to the file", historyOutboxConfig.maxRetries, batch.size());
+                        appendToSpillFile(batch);
+                        batch.clear();
+                        retries = 0;
+                    }
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, historyOutboxConfig.maxBackoff);
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.info("History outbox dispatcher interrupted");
+        } catch (Exception e) {
+            logger.error("Exception in history outbox dispatcher: {}", ExceptionUtils.getStackTrace(e));
+        }
+
+        buffer.drainTo(polledGames);
+        batch.addAll(serialize(polledGames));
+        if (!batch.isEmpty()) {
+            logger.info("Spilling {} unsent games before shutdown", batch.size());
+            appendToSpillFile(batch);
+        }
+    }
+
+    // Returns false only if sending should be retried. Accepted games are removed from the batch, so only the
+    // remaining ones are retried. Batch rejected by history-service as invalid is resent game by game, so only the
+    // invalid games are dropped. Other client errors (i.e. 401, 404 or 429 during a rollout of the gateway) are
+    // retried as the unavailability.
+    private boolean send(List<String> batch) {
+        long postStartedAt = System.nanoTime();
+        try {
+            historyServiceClient.postForEntity("", getRequestHttpEntity(batch), String.class);
+            gameServerMetrics.recordHistoryPost(System.nanoTime() - postStartedAt);
+            logger.info("Sent {} finished games to history-service", batch.size());
+            batch.clear();
+            return true;
+        } catch (HttpClientErrorException e) {
+            gameServerMetrics.recordHistoryPost(System.nanoTime() - postStartedAt);
+            gameServerMetrics.recordHistoryPostFailure();
+            if (!INVALID_GAME_STATUSES.contains(e.getStatusCode().value())) {
+                logger.warn("Sending finished games to history-service failed, status: {}", e.getStatusCode());
+                return false;
+            }
+
+            if (batch.size() == 1) {
+                logger.error("Finished game rejected by history-service, status: {}, game: {}", e.getStatusCode(), batch.getFirst());
+                batch.clear();
+                return true;
+            }
+
+            Iterator<String> iterator = batch.iterator();
+            while (iterator.hasNext()) {
+                if (!send(new ArrayList<>(List.of(iterator.next())))) {
+                    return false;
+                }
+                iterator.remove();
+            }
+            return true;
+        } catch (RestClientException e) {
+            gameServerMetrics.recordHistoryPostFailure();
+            logger.warn("Sending finished games to history-service failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // Spilled games are moved to the separate file first, so the games spilled in the meantime are not lost.
+    // If history-service is still unavailable the not sent games are appended back to the spill file.
+    // Returns false if the spilled games couldn't be sent.
+    private boolean resendSpilledGames() {
+        List<String> spilledGames;
+        try {
+            synchronized (spillFileLock) {
+                if (!Files.exists(replayedSpillFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return true;
+                    }
+                    Files.move(spillFile, replayedSpillFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+            spilledGames = Files.readAllLines(replayedSpillFile, StandardCharsets.UTF_8).stream().filter(line -> !line.isBlank()).toList();
+        } catch (IOException e) {
+            logger.error("Exception during reading the spill file: {}", ExceptionUtils.getStackTrace(e));
+            return false;
+        }
+
+        logger.info("Resending {} spilled games", spilledGames.size());
+        boolean sent = true;
+        for (int from = 0; from < spilledGames.size() && sent; from += historyOutboxConfig.batchSize) {
+            int to = Math.min(from + historyOutboxConfig.batchSize, spilledGames.size());
+            List<String> batch = new ArrayList<>(spilledGames.subList(from, to));
+            sent = send(batch);
+            if (!sent) {
+                batch.addAll(spilledGames.subList(to, spilledGames.size()));
+                appendToSpillFile(batch);
+            }
+        }
+
+        try {
+            Files.delete(replayedSpillFile);
+        } catch (IOException e) {
+            logger.error("Exception during deleting the replayed spill file: {}", ExceptionUtils.getStackTrace(e));
+        }
+        return sent;
+    }
+
+    private void spill(List<FinishedGameData> finishedGames) {
+        appendToSpillFile(serialize(finishedGames));
+    }
+
+    private void appendToSpillFile(List<String> serializedGames) {
+        synchronized (spillFileLock) {
+            try {
+                Path parentDirectory = spillFile.toAbsolutePath().getParent();
+                if (parentDirectory != null) {
+                    Files.createDirectories(parentDirectory);
+                }
+
+                try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (String serializedGame : serializedGames) {
+                        writer.write(serializedGame);
+                        writer.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Exception during writing to the spill file, {} games lost: {}", serializedGames.size(), ExceptionUtils.getStackTrace(e));
+            }
+        }
+    }
+
+    private List<String> serialize(List<FinishedGameData> finishedGames) {
+        List<String> serializedGames = new ArrayList<>(finishedGames.size());
+        for (FinishedGameData finishedGameData : finishedGames) {
+            try {
+                serializedGames.add(objectMapper.writeValueAsString(finishedGameData));
+            } catch (JsonProcessingException e) {
+                logger.error("Exception during serializing finished game, game dropped: {}", ExceptionUtils.getStackTrace(e));
+            }
+        }
+        return serializedGames;
+    }
+
+    // games are kept serialized (also in the spill file), so the batch body is just a JSON array of them
+    private HttpEntity<String> getRequestHttpEntity(List<String> serializedGames) {
+        HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>("[" + String.join(",", serializedGames) + "]", requestHeaders);
+    }
+}
@@ -0,0 +1,350 @@
+package pl.lukasz94w.journal;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.lukasz94w.configuration.JournalConfig;
+import pl.lukasz94w.game.Game;
+import pl.lukasz94w.game.GameMode;
+import pl.lukasz94w.game.GameSettings;
+import pl.lukasz94w.tictactoe.BoardVariant;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Append-only journal of the ongoing games, so the games survive a restart of the server. Events are only handed
+// over to the writer thread, which appends all the events collected in the meantime and forces them to the disk
+// once (group commit), so the event loops never wait for the disk. The journal file is memory-mapped, every record
+// is framed with its length and CRC32 and the first torn record ends the recovery. Once the journal is half full
+// (or some games ended and the snapshot interval passed) it's replaced by the snapshot of the ongoing games only,
+// written to the separate file which is atomically moved over the journal.
+// Record layout: length (int), CRC32 of the payload (int), payload: record type (byte), game id (long) and:
+// - game started: board variant and game mode ordinals (bytes), names of the players (unsigned short length, UTF-8),
+// - move applied: square value (ASCII 'X' or 'O') and square number (unsigned short),
+// - game ended: nothing.
+public class GameJournal {
+
+    private static final byte GAME_STARTED_RECORD = 1;
+    private static final byte MOVE_APPLIED_RECORD = 2;
+    private static final byte GAME_ENDED_RECORD = 3;
+
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private static final int MAX_RECORD_SIZE = 2 * 0xFFFF + 16;
+
+    private final Logger logger = LoggerFactory.getLogger(GameJournal.class);
+
+    private final Path journalFile;
+
+    private final Path snapshotFile;
+
+    private final int fileSize;
+
+    private final long snapshotInterval;
+
+    private final BlockingQueue<JournalEvent> events;
+
+    // ongoing games as written to the journal, touched only by the writer thread (and the constructor before it starts)
+    private final Map<Long, JournaledGame> journaledGames;
+
+    private final List<JournaledGame> recoveredGames;
+
+    private final ByteBuffer recordBuffer;
+
+    private final CRC32 checksum;
+
+    private final Thread writerThread;
+
+    private MappedByteBuffer journal;
+
+    private long lastSnapshotAt;
+
+    private int numberOfGamesEndedSinceSnapshot;
+
+    private volatile boolean running;
+
+    private volatile boolean frozen;
+
+    // writer thread died (i.e. the snapshot didn't fit into the file or the disk is full), events are not queued anymore
+    private volatile boolean failed;
+
+    public GameJournal(JournalConfig journalConfig) {
+        journalFile = Path.of(journalConfig.file);
+        snapshotFile = Path.of(journalConfig.file + ".snapshot");
+        fileSize = journalConfig.fileSize;
+        snapshotInterval = journalConfig.snapshotInterval;
+        events = new LinkedBlockingQueue<>();
+        journaledGames = new HashMap<>();
+        recordBuffer = ByteBuffer.allocate(MAX_RECORD_SIZE);
+        checksum = new CRC32();
+
+        try {
+            Path parentDirectory = journalFile.toAbsolutePath().getParent();
+            if (parentDirectory != null) {
+                Files.createDirectories(parentDirectory);
+            }
+            recover();
+            writeSnapshot(); // torn tail of the previous journal is dropped with it
+        } catch (IOException e) {
+            throw new UncheckedIOException("Game journal couldn't be opened: " + journalFile, e);
+        }
+
+        recoveredGames = journaledGames.values().stream().map(JournaledGame::copy).toList();
+        running = true;
+        writerThread = Thread.ofPlatform().name("game-journal-writer").start(this::write);
+    }
+
+    public void gameStarted(Game game) {
+        if (frozen || failed) {
+            return;
+        }
+
+        GameSettings gameSettings = game.getGameSettings();
+        events.add(new JournalEvent.GameStarted(game.getId(), gameSettings.boardVariant(), gameSettings.gameMode(), game.getFirstPlayer().getName(), game.getSecondPlayer().getName()));
+    }
+
+    // called only for the moves accepted by the board, so the square number is valid
+    public void moveApplied(long gameId, String squareValue, String squareNumber) {
+        if (frozen || failed) {
+            return;
+        }
+
+        events.add(new JournalEvent.MoveApplied(gameId, squareValue, Integer.parseInt(squareNumber)));
+    }
+
+    public void gameEnded(long gameId) {
+        if (frozen || failed) {
+            return;
+        }
+
+        events.add(new JournalEvent.GameEnded(gameId));
+    }
+
+    // Called at the shutdown before the sessions are closed. Closing them ends their games, which have to stay
+    // in the journal to be recovered after the restart.
+    public void freeze() {
+        frozen = true;
+    }
+
+    // games which were ongoing when the previous instance of the server stopped
+    public List<JournaledGame> getRecoveredGames() {
+        return recoveredGames;
+    }
+
+    public int getNumberOfPendingEvents() {
+        return events.size();
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    // writer is not interrupted (it would close the channel of the snapshot being written), it stops within a second
+    public void stop() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write() {
+        List<JournalEvent> batch = new ArrayList<>();
+        try {
+            while (running) {
+                JournalEvent event = events.poll(1, TimeUnit.SECONDS);
+                if (event != null) {
+                    batch.add(event);
+                    events.drainTo(batch);
+                    append(batch);
+                    batch.clear();
+                }
+
+                if (isSnapshotDue()) {
+                    writeSnapshot();
+                }
+            }
+
+            events.drainTo(batch);
+            append(batch);
+            logger.info("Game journal closed with {} ongoing games", journaledGames.size());
+        } catch (InterruptedException e) {
+            logger.info("Game journal writer interrupted");
+            fail();
+        } catch (Exception e) {
+            logger.error("Exception in game journal writer, journaling stopped: {}", ExceptionUtils.getStackTrace(e));
+            fail();
+        }
+    }
+
+    // events queued before the producers noticed the flag are released as well
+    private void fail() {
+        failed = true;
+        events.clear();
+    }
+
+    // the whole batch is forced at once, if the journal gets full the snapshot (which already covers the events
+    // applied so far) takes its place
+    private void append(List<JournalEvent> batch) throws IOException {
+        int batchStart = journal.position();
+        for (JournalEvent event : batch) {
+            apply(event);
+            if (!append(journal, event)) {
+                journal.force(batchStart, journal.position() - batchStart);
+                writeSnapshot();
+                batchStart = journal.position();
+            }
+        }
+        journal.force(batchStart, journal.position() - batchStart);
+    }
+
+    // returns false if the record doesn't fit into the file
+    private boolean append(ByteBuffer target, JournalEvent event) {
+        recordBuffer.clear();
+        encode(event, recordBuffer);
+        recordBuffer.flip();
+
+        if (target.remaining() < RECORD_HEADER_SIZE + recordBuffer.remaining()) {
+            return false;
+        }
+
+        checksum.reset();
+        checksum.update(recordBuffer);
+        recordBuffer.flip();
+        target.putInt(recordBuffer.remaining()).putInt((int) checksum.getValue()).put(recordBuffer);
+        return true;
+    }
+
+    private void apply(JournalEvent event) {
+        switch (event) {
+            case JournalEvent.GameStarted gameStarted -> journaledGames.put(gameStarted.gameId(), new JournaledGame(gameStarted.gameId(),
+                    new GameSettings(gameStarted.boardVariant(), gameStarted.gameMode()), gameStarted.firstPlayerName(), gameStarted.secondPlayerName()));
+            case JournalEvent.MoveApplied moveApplied -> {
+                JournaledGame journaledGame = journaledGames.get(moveApplied.gameId());
+                if (journaledGame != null) {
+                    journaledGame.addMove(moveApplied.squareValue(), moveApplied.squareNumber());
+                }
+            }
+            case JournalEvent.GameEnded gameEnded -> {
+                if (journaledGames.remove(gameEnded.gameId()) != null) {
+                    numberOfGamesEndedSinceSnapshot++;
+                }
+            }
+        }
+    }
+
+    private boolean isSnapshotDue() {
+        return journal.position() > fileSize / 2 || (numberOfGamesEndedSinceSnapshot > 0 && System.currentTimeMillis() - lastSnapshotAt > snapshotInterval);
+    }
+
+    // The mapping outlives both the channel and the move of the file, so the snapshot mapping becomes the journal.
+    // Mapping of the replaced journal is released by the GC.
+    private void writeSnapshot() throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            for (JournaledGame journaledGame : journaledGames.values()) {
+                GameSettings gameSettings = journaledGame.getGameSettings();
+                boolean written = append(snapshot, new JournalEvent.GameStarted(journaledGame.getGameId(), gameSettings.boardVariant(), gameSettings.gameMode(), journaledGame.getFirstPlayerName(), journaledGame.getSecondPlayerName()));
+                for (String move : journaledGame.getMoves()) {
+                    written &= append(snapshot, new JournalEvent.MoveApplied(journaledGame.getGameId(), move.substring(0, 1), Integer.parseInt(move.substring(1))));
+                }
+                if (!written) {
+                    throw new IOException("Snapshot of " + journaledGames.size() + " games doesn't fit into the journal of " + fileSize + " bytes");
+                }
+            }
+            snapshot.force();
+            Files.move(snapshotFile, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            journal = snapshot;
+        }
+
+        lastSnapshotAt = System.currentTimeMillis();
+        numberOfGamesEndedSinceSnapshot = 0;
+        logger.info("Game journal compacted to the snapshot of {} ongoing games ({} bytes)", journaledGames.size(), journal.position());
+    }
+
+    // zeroed length marks the end of the written records (unwritten part of the mapped file is zeroed)
+    private void recover() throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+
+        int numberOfRecords = 0;
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (records.remaining() >= RECORD_HEADER_SIZE) {
+                int length = records.getInt();
+                int recordChecksum = records.getInt();
+                if (length <= 0 || length > records.remaining()) {
+                    break;
+                }
+
+                ByteBuffer record = records.slice(records.position(), length);
+                checksum.reset();
+                checksum.update(record);
+                if ((int) checksum.getValue() != recordChecksum) {
+                    logger.warn("Torn record found in the game journal at position {}, the rest is skipped", records.position() - RECORD_HEADER_SIZE);
+                    break;
+                }
+
+                apply(decode(record.rewind()));
+                records.position(records.position() + length);
+                numberOfRecords++;
+            }
+        }
+        logger.info("Recovered {} ongoing games from {} journal records", journaledGames.size(), numberOfRecords);
+    }
+
+    private static void encode(JournalEvent event, ByteBuffer buffer) {
+        switch (event) {
+            case JournalEvent.GameStarted gameStarted -> {
+                buffer.put(GAME_STARTED_RECORD).putLong(gameStarted.gameId());
+                buffer.put((byte) gameStarted.boardVariant().ordinal()).put((byte) gameStarted.gameMode().ordinal());
+                writeName(buffer, gameStarted.firstPlayerName());
+                writeName(buffer, gameStarted.secondPlayerName());
+            }
+            case JournalEvent.MoveApplied moveApplied -> buffer.put(MOVE_APPLIED_RECORD).putLong(moveApplied.gameId())
+                    .put((byte) moveApplied.squareValue().charAt(0)).putShort((short) moveApplied.squareNumber());
+            case JournalEvent.GameEnded gameEnded -> buffer.put(GAME_ENDED_RECORD).putLong(gameEnded.gameId());
+        }
+    }
+
+    private static JournalEvent decode(ByteBuffer record) {
+        byte recordType = record.get();
+        long gameId = record.getLong();
+        return switch (recordType) {
+            case GAME_STARTED_RECORD -> new JournalEvent.GameStarted(gameId, BoardVariant.values()[record.get()], GameMode.values()[record.get()], readName(record), readName(record));
+            case MOVE_APPLIED_RECORD -> new JournalEvent.MoveApplied(gameId, record.get() == 'X' ? "X" : "O", Short.toUnsignedInt(record.getShort()));
+            case GAME_ENDED_RECORD -> new JournalEvent.GameEnded(gameId);
+            default -> throw new IllegalStateException("Unknown type of the game journal record: " + recordType);
+        };
+    }
+
+    private static void writeName(ByteBuffer buffer, String name) {
+        byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(encodedName.length, 0xFFFF);
+        buffer.putShort((short) length).put(encodedName, 0, length);
+    }
+
+    private static String readName(ByteBuffer record) {
+        byte[] encodedName = new byte[Short.toUnsignedInt(record.getShort())];
+        record.get(encodedName);
+        return new String(encodedName, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,19 @@
+package pl.lukasz94w.journal;
+
+import pl.lukasz94w.game.GameMode;
+import pl.lukasz94w.tictactoe.BoardVariant;
+
+// Lifecycle events of the games, appended to the journal in the order they were handed over
+sealed interface JournalEvent {
+
+    long gameId();
+
+    record GameStarted(long gameId, BoardVariant boardVariant, GameMode gameMode, String firstPlayerName, String secondPlayerName) implements JournalEvent {
+    }
+
+    record MoveApplied(long gameId, String squareValue, int squareNumber) implements JournalEvent {
+    }
+
+    record GameEnded(long gameId) implements JournalEvent {
+    }
+}
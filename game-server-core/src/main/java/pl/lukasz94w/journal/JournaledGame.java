@@ -0,0 +1,44 @@
+package pl.lukasz94w.journal;
+
+import lombok.Getter;
+import pl.lukasz94w.game.GameSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Ongoing game as it's known to the journal: who plays it, on which settings and the moves made so far
+@Getter
+public class JournaledGame {
+
+    private final long gameId;
+
+    private final GameSettings gameSettings;
+
+    private final String firstPlayerName;
+
+    private final String secondPlayerName;
+
+    // in the "X4" form, in the order they were made
+    private final List<String> moves;
+
+    JournaledGame(long gameId, GameSettings gameSettings, String firstPlayerName, String secondPlayerName) {
+        this(gameId, gameSettings, firstPlayerName, secondPlayerName, new ArrayList<>());
+    }
+
+    private JournaledGame(long gameId, GameSettings gameSettings, String firstPlayerName, String secondPlayerName, List<String> moves) {
+        this.gameId = gameId;
+        this.gameSettings = gameSettings;
+        this.firstPlayerName = firstPlayerName;
+        this.secondPlayerName = secondPlayerName;
+        this.moves = moves;
+    }
+
+    void addMove(String squareValue, int squareNumber) {
+        moves.add(squareValue + squareNumber);
+    }
+
+    // games of the writer thread keep changing, the rest of the server gets their immutable copies
+    JournaledGame copy() {
+        return new JournaledGame(gameId, gameSettings, firstPlayerName, secondPlayerName, List.copyOf(moves));
+    }
+}
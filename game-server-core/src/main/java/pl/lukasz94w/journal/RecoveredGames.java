@@ -0,0 +1,102 @@
+package pl.lukasz94w.journal;
+
+import lombok.Getter;
+import org.springframework.web.socket.WebSocketSession;
+import pl.lukasz94w.exception.GameServerAccessDeniedException;
+import pl.lukasz94w.exception.RejectionReason;
+import pl.lukasz94w.game.GameFactory;
+import pl.lukasz94w.player.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Games recovered from the journal after the restart, waiting for their players to reconnect. Player who reconnects
+// first waits for the opponent, once both are back the game is handed over to be restored. Games not rejoined
+// within the recovery timeout are expired and ended in the journal.
+public class RecoveredGames {
+
+    private final GameJournal gameJournal;
+
+    @Getter
+    private final long recoveryTimeout;
+
+    private final Map<String, JournaledGame> gamesByPlayerName;
+
+    private final Map<Long, Player> waitingPlayersByGameId;
+
+    private final Map<String, Player> waitingPlayersBySessionId;
+
+    public RecoveredGames(GameJournal gameJournal, long recoveryTimeout) {
+        this.gameJournal = gameJournal;
+        this.recoveryTimeout = recoveryTimeout;
+        gamesByPlayerName = new HashMap<>();
+        waitingPlayersByGameId = new HashMap<>();
+        waitingPlayersBySessionId = new HashMap<>();
+
+        for (JournaledGame journaledGame : gameJournal.getRecoveredGames()) {
+            gamesByPlayerName.put(journaledGame.getFirstPlayerName(), journaledGame);
+            gamesByPlayerName.put(journaledGame.getSecondPlayerName(), journaledGame);
+            GameFactory.skipGameIdsUpTo(journaledGame.getGameId()); // recovered games keep their ids
+        }
+    }
+
+    public synchronized boolean isRecovered(String playerName) {
+        return gamesByPlayerName.containsKey(playerName);
+    }
+
+    // returns the game once the opponent is back too, otherwise the player is kept waiting
+    public synchronized Optional<RejoinedGame> rejoin(Player player) {
+        JournaledGame journaledGame = gamesByPlayerName.get(player.getName());
+        if (journaledGame == null) {
+            throw new GameServerAccessDeniedException(RejectionReason.RECOVERED_GAME_EXPIRED, "Recovered game is no longer available");
+        }
+
+        Player opponent = waitingPlayersByGameId.get(journaledGame.getGameId());
+        if (opponent == null) {
+            waitingPlayersByGameId.put(journaledGame.getGameId(), player);
+            waitingPlayersBySessionId.put(player.getSession().getId(), player);
+            return Optional.empty();
+        }
+        if (opponent.getName().equals(player.getName())) {
+            throw new GameServerAccessDeniedException(RejectionReason.ALREADY_WAITING, "Player already waiting for the opponent of the recovered game");
+        }
+
+        gamesByPlayerName.remove(journaledGame.getFirstPlayerName());
+        gamesByPlayerName.remove(journaledGame.getSecondPlayerName());
+        waitingPlayersByGameId.remove(journaledGame.getGameId());
+        waitingPlayersBySessionId.remove(opponent.getSession().getId());
+
+        boolean firstPlayer = player.getName().equals(journaledGame.getFirstPlayerName());
+        return Optional.of(new RejoinedGame(journaledGame, firstPlayer ? player : opponent, firstPlayer ? opponent : player));
+    }
+
+    public synchronized Optional<Player> findWaitingPlayer(WebSocketSession session) {
+        return Optional.ofNullable(waitingPlayersBySessionId.get(session.getId()));
+    }
+
+    // the game stays recoverable, the player can still reconnect before the recovery timeout
+    public synchronized Optional<Player> leave(WebSocketSession session) {
+        Player waitingPlayer = waitingPlayersBySessionId.remove(session.getId());
+        if (waitingPlayer != null) {
+            waitingPlayersByGameId.values().remove(waitingPlayer);
+        }
+        return Optional.ofNullable(waitingPlayer);
+    }
+
+    // returns the players still waiting for their opponents
+    public synchronized List<Player> expire() {
+        List<Player> waitingPlayers = new ArrayList<>(waitingPlayersBySessionId.values());
+        gamesByPlayerName.values().stream().distinct().forEach(journaledGame -> gameJournal.gameEnded(journaledGame.getGameId()));
+        gamesByPlayerName.clear();
+        waitingPlayersByGameId.clear();
+        waitingPlayersBySessionId.clear();
+        return waitingPlayers;
+    }
+
+    public synchronized int getNumberOfGames() {
+        return (int) gamesByPlayerName.values().stream().distinct().count();
+    }
+}
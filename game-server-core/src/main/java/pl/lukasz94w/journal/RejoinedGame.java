@@ -0,0 +1,7 @@
+package pl.lukasz94w.journal;
+
+import pl.lukasz94w.player.Player;
+
+// Recovered game whose both players have reconnected, players are in the seats they had before the restart
+public record RejoinedGame(JournaledGame journaledGame, Player firstPlayer, Player secondPlayer) {
+}
@@ -0,0 +1,26 @@
+package pl.lukasz94w.matchmaking;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Players waiting for the game of the same settings
+@Getter
+class Lobby {
+
+    private final List<Queue<WaitingPlayer>> shards;
+
+    private final AtomicInteger depth;
+
+    Lobby(int numberOfShards) {
+        shards = new ArrayList<>(numberOfShards);
+        for (int i = 0; i < numberOfShards; i++) {
+            shards.add(new ConcurrentLinkedQueue<>());
+        }
+        depth = new AtomicInteger();
+    }
+}
@@ -0,0 +1,184 @@
+package pl.lukasz94w.matchmaking;
+
+import org.javatuples.Pair;
+import org.springframework.web.socket.WebSocketSession;
+import pl.lukasz94w.exception.GameServerAccessDeniedException;
+import pl.lukasz94w.exception.RejectionReason;
+import pl.lukasz94w.game.GameSettings;
+import pl.lukasz94w.metrics.GameServerMetrics;
+import pl.lukasz94w.player.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lobby of the players waiting for an opponent. Waiting players are spread over several lock-free queues (shards)
+// so concurrent handshakes don't contend on a single queue head. A player is paired only by the thread which
+// managed to claim it, entries of players who left the lobby are skipped (and dropped) when polled.
+// Every game settings have their own lobby, players are paired only with the ones who chose the same settings.
+public class Matchmaker {
+
+    private final int numberOfShards;
+
+    private final Map<GameSettings, Lobby> lobbies;
+
+    private final Map<String, WaitingPlayer> waitingPlayersBySessionId;
+
+    private final Map<String, WaitingPlayer> waitingPlayersByName;
+
+    private final LongAdder numberOfPairedPlayers;
+
+    private final LongAdder totalWaitTime;
+
+    private final LongAccumulator maxWaitTime;
+
+    private final GameServerMetrics gameServerMetrics;
+
+    public Matchmaker(int numberOfShards, GameServerMetrics gameServerMetrics) {
+        this.numberOfShards = numberOfShards;
+        this.gameServerMetrics = gameServerMetrics;
+        lobbies = new ConcurrentHashMap<>();
+        waitingPlayersBySessionId = new ConcurrentHashMap<>();
+        waitingPlayersByName = new ConcurrentHashMap<>();
+        numberOfPairedPlayers = new LongAdder();
+        totalWaitTime = new LongAdder();
+        maxWaitTime = new LongAccumulator(Long::max, 0);
+    }
+
+    // Puts the player into the lobby and pairs as many waiting players as possible.
+    // Returned players are already removed from the lobby, all of them have chosen the given settings.
+    public List<Pair<Player, Player>> enqueue(Player player, GameSettings gameSettings) {
+        Lobby lobby = lobbies.computeIfAbsent(gameSettings, settings -> new Lobby(numberOfShards));
+        WaitingPlayer waitingPlayer = new WaitingPlayer(player, lobby);
+        if (waitingPlayersByName.putIfAbsent(player.getName(), waitingPlayer) != null) {
+            throw new GameServerAccessDeniedException(RejectionReason.ALREADY_WAITING, "Player already waiting in lobby!");
+        }
+
+        waitingPlayersBySessionId.put(player.getSession().getId(), waitingPlayer);
+        lobby.getDepth().incrementAndGet();
+        int homeShard = getHomeShard(player.getSession());
+        lobby.getShards().get(homeShard).offer(waitingPlayer);
+        return pairWaitingPlayers(lobby, homeShard);
+    }
+
+    // Returns the removed player if the session belonged to a waiting player.
+    public Optional<Player> remove(WebSocketSession session) {
+        WaitingPlayer waitingPlayer = waitingPlayersBySessionId.remove(session.getId());
+        if (waitingPlayer == null) {
+            return Optional.empty();
+        }
+
+        waitingPlayer.getLobby().getDepth().decrementAndGet();
+        waitingPlayersByName.remove(waitingPlayer.getPlayer().getName(), waitingPlayer);
+        waitingPlayer.claim(); // queue entry becomes stale and will be dropped when polled
+        return Optional.of(waitingPlayer.getPlayer());
+    }
+
+    public Optional<Player> findWaitingPlayer(WebSocketSession session) {
+        return Optional.ofNullable(waitingPlayersBySessionId.get(session.getId())).map(WaitingPlayer::getPlayer);
+    }
+
+    public boolean isWaiting(String playerName) {
+        return waitingPlayersByName.containsKey(playerName);
+    }
+
+    public int getQueueDepth() {
+        return waitingPlayersBySessionId.size();
+    }
+
+    public long getNumberOfPairedPlayers() {
+        return numberOfPairedPlayers.sum();
+    }
+
+    public double getAverageWaitTime() {
+        long pairedPlayers = numberOfPairedPlayers.sum();
+        return pairedPlayers == 0 ? 0 : (double) totalWaitTime.sum() / pairedPlayers;
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    // Batch pairing: claims players two by two until the queues are drained. If the last claimed player has no partner
+    // it's put back, and the pass is repeated when another thread has enqueued a player in the meantime.
+    private List<Pair<Player, Player>> pairWaitingPlayers(Lobby lobby, int startShard) {
+        List<Queue<WaitingPlayer>> shards = lobby.getShards();
+        List<Pair<Player, Player>> pairs = new ArrayList<>();
+        WaitingPlayer unpairedPlayer;
+
+        do {
+            unpairedPlayer = null;
+            WaitingPlayer claimedPlayer;
+            while ((claimedPlayer = claimNext(shards, startShard)) != null) {
+                if (unpairedPlayer == null) {
+                    unpairedPlayer = claimedPlayer;
+                } else {
+                    pairs.add(Pair.with(pair(unpairedPlayer), pair(claimedPlayer)));
+                    unpairedPlayer = null;
+                }
+            }
+
+            if (unpairedPlayer != null && !putBack(unpairedPlayer, shards.get(startShard))) {
+                unpairedPlayer = null;
+            }
+        } while (unpairedPlayer != null && lobby.getDepth().get() >= 2);
+
+        return pairs;
+    }
+
+    private WaitingPlayer claimNext(List<Queue<WaitingPlayer>> shards, int startShard) {
+        for (int i = 0; i < shards.size(); i++) {
+            Queue<WaitingPlayer> shard = shards.get((startShard + i) % shards.size());
+            WaitingPlayer waitingPlayer;
+            while ((waitingPlayer = shard.poll()) != null) {
+                if (!waitingPlayer.claim()) {
+                    continue; // stale entry of the player who left the lobby
+                }
+                if (waitingPlayer.getPlayer().getSession().isOpen()) {
+                    return waitingPlayer;
+                }
+                leaveLobby(waitingPlayer);
+            }
+        }
+
+        return null;
+    }
+
+    private boolean putBack(WaitingPlayer waitingPlayer, Queue<WaitingPlayer> shard) {
+        if (waitingPlayersBySessionId.get(waitingPlayer.getPlayer().getSession().getId()) != waitingPlayer) {
+            return false; // disconnected while being claimed
+        }
+
+        waitingPlayer.release();
+        shard.offer(waitingPlayer);
+        return true;
+    }
+
+    private Player pair(WaitingPlayer waitingPlayer) {
+        leaveLobby(waitingPlayer);
+
+        long waitTime = System.currentTimeMillis() - waitingPlayer.getEnqueuedAt();
+        numberOfPairedPlayers.increment();
+        totalWaitTime.add(waitTime);
+        maxWaitTime.accumulate(waitTime);
+        gameServerMetrics.recordPairingWaitTime(waitTime);
+        return waitingPlayer.getPlayer();
+    }
+
+    private void leaveLobby(WaitingPlayer waitingPlayer) {
+        Player player = waitingPlayer.getPlayer();
+        if (waitingPlayersBySessionId.remove(player.getSession().getId(), waitingPlayer)) {
+            waitingPlayer.getLobby().getDepth().decrementAndGet();
+        }
+        waitingPlayersByName.remove(player.getName(), waitingPlayer);
+    }
+
+    private int getHomeShard(WebSocketSession session) {
+        return Math.floorMod(session.getId().hashCode(), numberOfShards);
+    }
+}
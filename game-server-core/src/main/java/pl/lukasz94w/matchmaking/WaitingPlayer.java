@@ -0,0 +1,34 @@
+package pl.lukasz94w.matchmaking;
+
+import lombok.Getter;
+import pl.lukasz94w.player.Player;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Getter
+class WaitingPlayer {
+
+    private final Player player;
+
+    private final Lobby lobby;
+
+    private final long enqueuedAt;
+
+    private final AtomicBoolean claimed;
+
+    WaitingPlayer(Player player, Lobby lobby) {
+        this.player = player;
+        this.lobby = lobby;
+        this.enqueuedAt = System.currentTimeMillis();
+        this.claimed = new AtomicBoolean(false);
+    }
+
+    // only the thread which successfully claimed the player is allowed to pair it (or put it back to the queue)
+    boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    void release() {
+        claimed.set(false);
+    }
+}
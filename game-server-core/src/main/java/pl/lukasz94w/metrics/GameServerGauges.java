@@ -0,0 +1,97 @@
+package pl.lukasz94w.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import pl.lukasz94w.admission.AdmissionController;
+import pl.lukasz94w.eventloop.EventLoopGroup;
+import pl.lukasz94w.game.GameRegistry;
+import pl.lukasz94w.history.FinishedGamesOutbox;
+import pl.lukasz94w.journal.GameJournal;
+import pl.lukasz94w.matchmaking.Matchmaker;
+import pl.lukasz94w.session.OutboundQueues;
+
+// State of the server read only when the metrics are scraped, the components keep their own counters anyway.
+public class GameServerGauges implements MeterBinder {
+
+    private final GameRegistry gameRegistry;
+
+    private final Matchmaker matchmaker;
+
+    private final EventLoopGroup eventLoopGroup;
+
+    private final OutboundQueues outboundQueues;
+
+    private final AdmissionController admissionController;
+
+    private final FinishedGamesOutbox finishedGamesOutbox;
+
+    private final GameJournal gameJournal;
+
+    public GameServerGauges(GameRegistry gameRegistry, Matchmaker matchmaker, EventLoopGroup eventLoopGroup, OutboundQueues outboundQueues, AdmissionController admissionController, FinishedGamesOutbox finishedGamesOutbox, GameJournal gameJournal) {
+        this.gameRegistry = gameRegistry;
+        this.matchmaker = matchmaker;
+        this.eventLoopGroup = eventLoopGroup;
+        this.outboundQueues = outboundQueues;
+        this.admissionController = admissionController;
+        this.finishedGamesOutbox = finishedGamesOutbox;
+        this.gameJournal = gameJournal;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("game.server.games.active", gameRegistry, GameRegistry::numberOfGames)
+                .description("Games being played")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.games.limit", admissionController, AdmissionController::getLimit)
+                .description("Current adaptive limit of the active games")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.lobby.waiting", matchmaker, Matchmaker::getQueueDepth)
+                .description("Players waiting in the lobby for an opponent")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("game.server.lobby.paired", matchmaker, Matchmaker::getNumberOfPairedPlayers)
+                .description("Players paired by the matchmaker")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.eventloop.pending", eventLoopGroup, EventLoopGroup::getNumberOfPendingTasks)
+                .description("Tasks queued in the event loops")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.outbound.queues", outboundQueues, OutboundQueues::getNumberOfQueues)
+                .description("Outbound queues of the open sessions")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.outbound.backlog", outboundQueues, OutboundQueues::getNumberOfBufferedMessages)
+                .description("Messages waiting in the outbound queues of all the sessions")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.outbound.backlog.max", outboundQueues, OutboundQueues::getMaxBufferedBytes)
+                .description("Largest outbound queue of a single session")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("game.server.outbound.dropped", outboundQueues, OutboundQueues::getNumberOfDroppedMessages)
+                .description("Messages dropped or coalesced by the overflow policy")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("game.server.outbound.slow.consumers", outboundQueues, OutboundQueues::getNumberOfSlowConsumerDisconnections)
+                .description("Sessions closed because they couldn't keep up with the sent messages")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.history.outbox.buffered", finishedGamesOutbox, FinishedGamesOutbox::getNumberOfBufferedGames)
+                .description("Finished games waiting to be sent to history-service")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.journal.pending", gameJournal, GameJournal::getNumberOfPendingEvents)
+                .description("Game events waiting to be appended to the journal")
+                .register(meterRegistry);
+
+        Gauge.builder("game.server.journal.failed", gameJournal, journal -> journal.isFailed() ? 1 : 0)
+                .description("1 if the journal writer stopped on an error, the ongoing games are not journaled then")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,113 @@
+package pl.lukasz94w.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import pl.lukasz94w.exception.RejectionReason;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.*;
+
+// Meters of the events on the message path. All of them (with every tag value) are registered up front, so recording
+// is just a lookup of the ready meter and nothing is allocated per message. Gauges of the server state are bound
+// separately, see GameServerGauges.
+public class GameServerMetrics {
+
+    private static final List<String> CLIENT_MESSAGE_TYPES = List.of(PLAYER_MESSAGE, GAME_UPDATE, HEARTBEAT, PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION, PLAYER_MOVE);
+
+    private final Timer pairingWaitTime;
+
+    private final Map<String, Timer> messageHandlingTimes;
+
+    private final Timer unknownMessageHandlingTime;
+
+    private final Timer outboundSendTime;
+
+    private final Counter heartbeatExpirations;
+
+    private final Map<RejectionReason, Counter> rejections;
+
+    private final Timer historyPostTime;
+
+    private final Counter historyPostFailures;
+
+    public GameServerMetrics(MeterRegistry meterRegistry) {
+        pairingWaitTime = Timer.builder("game.server.lobby.wait")
+                .description("Time players waited in the lobby for an opponent")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        messageHandlingTimes = new HashMap<>();
+        for (String messageType : CLIENT_MESSAGE_TYPES) {
+            messageHandlingTimes.put(messageType, messageHandlingTimer(meterRegistry, messageType));
+        }
+        unknownMessageHandlingTime = messageHandlingTimer(meterRegistry, "unknown");
+
+        outboundSendTime = Timer.builder("game.server.outbound.send")
+                .description("Time of writing a single message to the session")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        heartbeatExpirations = Counter.builder("game.server.heartbeat.expirations")
+                .description("Sessions closed because of missing heartbeats")
+                .register(meterRegistry);
+
+        rejections = new EnumMap<>(RejectionReason.class);
+        for (RejectionReason rejectionReason : RejectionReason.values()) {
+            rejections.put(rejectionReason, Counter.builder("game.server.rejections")
+                    .description("Rejected handshakes")
+                    .tag("reason", rejectionReason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+
+        historyPostTime = Timer.builder("game.server.history.post")
+                .description("Time of posting the batch of finished games to history-service")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        historyPostFailures = Counter.builder("game.server.history.post.failures")
+                .description("Batches of finished games not accepted by history-service")
+                .register(meterRegistry);
+    }
+
+    public void recordPairingWaitTime(long waitTimeMillis) {
+        pairingWaitTime.record(waitTimeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordMessageHandling(String messageType, long handlingTimeNanos) {
+        messageHandlingTimes.getOrDefault(messageType, unknownMessageHandlingTime).record(handlingTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordOutboundSend(long sendTimeNanos) {
+        outboundSendTime.record(sendTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHeartbeatExpiration() {
+        heartbeatExpirations.increment();
+    }
+
+    public void recordRejection(RejectionReason rejectionReason) {
+        rejections.get(rejectionReason).increment();
+    }
+
+    public void recordHistoryPost(long postTimeNanos) {
+        historyPostTime.record(postTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHistoryPostFailure() {
+        historyPostFailures.increment();
+    }
+
+    private static Timer messageHandlingTimer(MeterRegistry meterRegistry, String messageType) {
+        return Timer.builder("game.server.messages.handling")
+                .description("Time of handling the incoming message, its count is the rate of the messages")
+                .tag("type", messageType)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
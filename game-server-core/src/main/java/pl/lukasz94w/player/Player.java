@@ -1,24 +1,91 @@
 package pl.lukasz94w.player;
 
 import lombok.Getter;
+import org.javatuples.Pair;
 import org.springframework.web.socket.WebSocketSession;
+import pl.lukasz94w.scheduler.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Getter
 public class Player {
 
-    protected final WebSocketSession session;
+    // replaced when the player resumes its seat from the new session
+    protected volatile WebSocketSession session;
 
     protected final String name;
 
-    protected Long lastHeartbeat;
+    // given to the player at the start of the game, lets it take back its seat after the session drops
+    protected final String resumeToken;
+
+    // written by the event loop of the player's game (or handshake thread in the lobby), read by the sessions cleaner
+    protected volatile long lastHeartbeat;
+
+    // closes the session when no heartbeat arrives in time, re-armed on every received heartbeat
+    protected volatile Timeout heartbeatTimeout;
+
+    // State of the seat held after the session dropped, touched only by the event loop of the player's game.
+    // Messages sent to the player in the meantime are kept to be replayed after the resume.
+    protected boolean disconnected;
+
+    protected Timeout gracePeriodTimeout;
 
-    Player(WebSocketSession session, String name) {
+    protected final List<Pair<String, String>> missedMessages;
+
+    protected boolean missedMessagesOverflowed;
+
+    Player(WebSocketSession session, String name, String resumeToken) {
         this.session = session;
         this.name = name;
+        this.resumeToken = resumeToken;
         this.lastHeartbeat = System.currentTimeMillis();
+        missedMessages = new ArrayList<>();
     }
 
     public void updateLastHeartbeat() {
         lastHeartbeat = System.currentTimeMillis();
     }
+
+    public void replaceHeartbeatTimeout(Timeout newHeartbeatTimeout) {
+        Timeout previousHeartbeatTimeout = heartbeatTimeout;
+        heartbeatTimeout = newHeartbeatTimeout;
+        if (previousHeartbeatTimeout != null) {
+            previousHeartbeatTimeout.cancel();
+        }
+    }
+
+    public void cancelHeartbeatTimeout() {
+        replaceHeartbeatTimeout(null);
+    }
+
+    public void hold(Timeout gracePeriodTimeout) {
+        disconnected = true;
+        this.gracePeriodTimeout = gracePeriodTimeout;
+        cancelHeartbeatTimeout();
+    }
+
+    // messages above the limit are not kept, the seat can't be resumed consistently anymore
+    public void addMissedMessage(String messageType, String messageData, int limit) {
+        if (missedMessages.size() < limit) {
+            missedMessages.add(Pair.with(messageType, messageData));
+        } else {
+            missedMessagesOverflowed = true;
+        }
+    }
+
+    // binds the player to the new session and returns the messages to be replayed to it
+    public List<Pair<String, String>> resume(WebSocketSession newSession) {
+        session = newSession;
+        disconnected = false;
+        if (gracePeriodTimeout != null) {
+            gracePeriodTimeout.cancel();
+            gracePeriodTimeout = null;
+        }
+        updateLastHeartbeat();
+
+        List<Pair<String, String>> messagesToReplay = List.copyOf(missedMessages);
+        missedMessages.clear();
+        return messagesToReplay;
+    }
 }
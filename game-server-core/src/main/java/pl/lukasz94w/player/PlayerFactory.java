@@ -2,12 +2,24 @@ package pl.lukasz94w.player;
 
 import org.springframework.web.socket.WebSocketSession;
 
+import java.security.SecureRandom;
+import java.util.Base64;
+
 public class PlayerFactory {
 
+    private static final SecureRandom resumeTokenGenerator = new SecureRandom();
+
     private PlayerFactory() {
     }
 
     public static Player createPlayer(WebSocketSession session, String playerName) {
-        return new Player(session, playerName);
+        return new Player(session, playerName, generateResumeToken());
+    }
+
+    // 128 random bits, URL-safe as the token is passed back in the query of the handshake
+    private static String generateResumeToken() {
+        byte[] resumeToken = new byte[16];
+        resumeTokenGenerator.nextBytes(resumeToken);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(resumeToken);
     }
 }
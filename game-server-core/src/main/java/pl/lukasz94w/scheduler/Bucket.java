@@ -0,0 +1,68 @@
+package pl.lukasz94w.scheduler;
+
+// Doubly-linked list of timeouts which hash to the same slot of the wheel, accessed only by the worker thread.
+class Bucket {
+
+    private Timeout head;
+
+    private Timeout tail;
+
+    void add(Timeout timeout) {
+        timeout.bucket = this;
+        if (head == null) {
+            head = tail = timeout;
+        } else {
+            tail.next = timeout;
+            timeout.prev = tail;
+            tail = timeout;
+        }
+    }
+
+    // Expires the timeouts whose rounds have passed, the remaining ones get one round closer to their deadline.
+    void expireTimeouts(long deadline, TimeoutTaskRunner taskRunner) {
+        Timeout timeout = head;
+
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                remove(timeout);
+                if (timeout.deadline <= deadline) {
+                    taskRunner.run(timeout);
+                }
+            } else if (timeout.isCancelled()) {
+                remove(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    void remove(Timeout timeout) {
+        if (timeout.bucket != this) {
+            return;
+        }
+
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        if (timeout == head) {
+            head = timeout.next;
+        }
+        if (timeout == tail) {
+            tail = timeout.prev;
+        }
+
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = null;
+    }
+
+    @FunctionalInterface
+    interface TimeoutTaskRunner {
+        void run(Timeout timeout);
+    }
+}
@@ -0,0 +1,162 @@
+package pl.lukasz94w.scheduler;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hashed timing wheel (Varghese & Lauck). Scheduling and cancelling are O(1) and done by any thread through lock-free
+// queues, a single worker thread moves the new timeouts into the buckets and on every tick runs only the timeouts
+// which expired, instead of periodically checking all of them. Tasks are executed on the worker thread, so they
+// should be short (i.e. closing a session) or hand the work over to another executor.
+public class HashedTimingWheel {
+
+    private static final int MAX_TIMEOUTS_TRANSFERRED_PER_TICK = 100000;
+
+    private final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickDuration;
+
+    private final Bucket[] wheel;
+
+    private final int mask;
+
+    private final Queue<Timeout> newTimeouts;
+
+    private final Queue<Timeout> cancelledTimeouts;
+
+    private final AtomicLong numberOfPendingTimeouts;
+
+    private final long startTime;
+
+    private final Thread workerThread;
+
+    private volatile boolean running;
+
+    private long tick;
+
+    public HashedTimingWheel(long tickDurationMillis, int ticksPerWheel) {
+        if (tickDurationMillis <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("Tick duration and number of ticks per wheel must be positive");
+        }
+
+        tickDuration = TimeUnit.MILLISECONDS.toNanos(tickDurationMillis);
+        wheel = createWheel(ticksPerWheel);
+        mask = wheel.length - 1;
+        newTimeouts = new ConcurrentLinkedQueue<>();
+        cancelledTimeouts = new ConcurrentLinkedQueue<>();
+        numberOfPendingTimeouts = new AtomicLong();
+        startTime = System.nanoTime();
+        running = true;
+        workerThread = Thread.ofPlatform().name("timing-wheel").daemon().start(this::work);
+    }
+
+    public Timeout schedule(Runnable task, long delayMillis) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel has already been stopped");
+        }
+
+        long deadline = System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0));
+        Timeout timeout = new Timeout(this, task, deadline);
+        numberOfPendingTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    public long getNumberOfPendingTimeouts() {
+        return numberOfPendingTimeouts.get();
+    }
+
+    public void stop() {
+        running = false;
+        workerThread.interrupt();
+    }
+
+    void expired() {
+        numberOfPendingTimeouts.decrementAndGet();
+    }
+
+    void cancelled(Timeout timeout) {
+        numberOfPendingTimeouts.decrementAndGet();
+        cancelledTimeouts.add(timeout);
+    }
+
+    private void work() {
+        while (running) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                break;
+            }
+
+            removeCancelledTimeouts();
+            transferNewTimeoutsToBuckets();
+            wheel[(int) (tick & mask)].expireTimeouts(deadline, this::expire);
+            tick++;
+        }
+    }
+
+    private long waitForNextTick() {
+        long deadline = tickDuration * (tick + 1);
+
+        while (true) {
+            long currentTime = System.nanoTime() - startTime;
+            long sleepTimeMillis = TimeUnit.NANOSECONDS.toMillis(deadline - currentTime + 999999);
+            if (sleepTimeMillis <= 0) {
+                return currentTime;
+            }
+
+            try {
+                Thread.sleep(sleepTimeMillis);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            timeout.remove();
+        }
+    }
+
+    private void transferNewTimeoutsToBuckets() {
+        for (int i = 0; i < MAX_TIMEOUTS_TRANSFERRED_PER_TICK; i++) {
+            Timeout timeout = newTimeouts.poll();
+            if (timeout == null) {
+                break;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            long calculatedTick = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (calculatedTick - tick) / wheel.length;
+            long ticks = Math.max(calculatedTick, tick); // the ones which should have already expired go to the current bucket
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Timeout timeout) {
+        try {
+            timeout.expire();
+        } catch (Exception e) {
+            logger.error("Exception in timing wheel task: {}", ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    private static Bucket[] createWheel(int ticksPerWheel) {
+        int normalizedTicksPerWheel = Integer.highestOneBit(ticksPerWheel - 1) << 1; // power of two, so the mask can be used
+        Bucket[] wheel = new Bucket[Math.max(normalizedTicksPerWheel, 1)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        return wheel;
+    }
+}
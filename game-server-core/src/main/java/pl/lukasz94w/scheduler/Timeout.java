@@ -0,0 +1,67 @@
+package pl.lukasz94w.scheduler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Handle of a task scheduled in the HashedTimingWheel. Links to the neighbours are used (and modified) only by the
+// worker thread of the wheel, the state is the only field shared with the threads scheduling and cancelling tasks.
+public class Timeout {
+
+    private static final int ST_INIT = 0;
+
+    private static final int ST_CANCELLED = 1;
+
+    private static final int ST_EXPIRED = 2;
+
+    private final HashedTimingWheel timingWheel;
+
+    private final Runnable task;
+
+    final long deadline;
+
+    long remainingRounds;
+
+    Timeout next;
+
+    Timeout prev;
+
+    Bucket bucket;
+
+    private final AtomicInteger state;
+
+    Timeout(HashedTimingWheel timingWheel, Runnable task, long deadline) {
+        this.timingWheel = timingWheel;
+        this.task = task;
+        this.deadline = deadline;
+        this.state = new AtomicInteger(ST_INIT);
+    }
+
+    public boolean cancel() {
+        if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+            return false;
+        }
+
+        timingWheel.cancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return state.get() == ST_CANCELLED;
+    }
+
+    public boolean isExpired() {
+        return state.get() == ST_EXPIRED;
+    }
+
+    void expire() {
+        if (state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+            timingWheel.expired();
+            task.run();
+        }
+    }
+
+    void remove() {
+        if (bucket != null) {
+            bucket.remove(this);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package pl.lukasz94w.session;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.HEARTBEAT_RECEIVED_CONFIRMATION;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.OPPONENT_MESSAGE;
+
+// Messages waiting to be written to a single session. They are only buffered by the calling thread (i.e. an event
+// loop), writing is done by the sender thread of the session, so a stalled socket never blocks the caller and
+// the session never has two writers at once. Messages are written in the order of sending, except the coalesced
+// ones which are written after the buffered messages.
+public class OutboundQueue {
+
+    private final Logger logger = LoggerFactory.getLogger(OutboundQueue.class);
+
+    private final WebSocketSession session;
+
+    private final OutboundQueues owner;
+
+    private final Queue<WebSocketMessage<?>> messages;
+
+    // the latest message of every coalesced type, only used by the COALESCE policy
+    private final Map<String, WebSocketMessage<?>> coalescedMessages;
+
+    private final AtomicInteger bufferedMessages;
+
+    private final AtomicInteger bufferedBytes;
+
+    private final AtomicBoolean flushScheduled;
+
+    private final LongAdder droppedMessages;
+
+    // 0 when nothing is being written
+    private volatile long sendStartedAt;
+
+    private volatile boolean closed;
+
+    OutboundQueue(WebSocketSession session, OutboundQueues owner) {
+        this.session = session;
+        this.owner = owner;
+        messages = new ConcurrentLinkedQueue<>();
+        coalescedMessages = new ConcurrentHashMap<>();
+        bufferedMessages = new AtomicInteger();
+        bufferedBytes = new AtomicInteger();
+        flushScheduled = new AtomicBoolean();
+        droppedMessages = new LongAdder();
+    }
+
+    public void send(String messageType, WebSocketMessage<?> message) {
+        if (closed) {
+            return;
+        }
+
+        long sendStartedAt = this.sendStartedAt;
+        if (sendStartedAt > 0 && System.currentTimeMillis() - sendStartedAt > owner.getSendTimeLimit()) {
+            disconnect("send time limit exceeded");
+            return;
+        }
+
+        if (bufferedBytes.get() + message.getPayloadLength() > owner.getBufferSizeLimit()) {
+            handleOverflow(messageType, message);
+            return;
+        }
+
+        buffer(message);
+        scheduleFlush();
+    }
+
+    public int getBufferedMessages() {
+        return bufferedMessages.get();
+    }
+
+    public int getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages.sum();
+    }
+
+    private void handleOverflow(String messageType, WebSocketMessage<?> message) {
+        boolean chatOrHeartbeat = messageType.equals(OPPONENT_MESSAGE) || messageType.equals(HEARTBEAT_RECEIVED_CONFIRMATION);
+        OverflowPolicy overflowPolicy = owner.getOverflowPolicy();
+
+        if (chatOrHeartbeat && overflowPolicy == OverflowPolicy.DROP_CHAT) {
+            drop();
+            return;
+        }
+
+        if (chatOrHeartbeat && overflowPolicy == OverflowPolicy.COALESCE) {
+            if (coalescedMessages.put(messageType, message) != null) {
+                drop();
+            }
+            scheduleFlush();
+            return;
+        }
+
+        disconnect("outbound buffer overflow (" + bufferedBytes.get() + " bytes)");
+    }
+
+    private void buffer(WebSocketMessage<?> message) {
+        messages.offer(message);
+        bufferedMessages.incrementAndGet();
+        bufferedBytes.addAndGet(message.getPayloadLength());
+        owner.onBuffered(1);
+    }
+
+    private WebSocketMessage<?> poll() {
+        WebSocketMessage<?> message = messages.poll();
+        if (message != null) {
+            bufferedMessages.decrementAndGet();
+            bufferedBytes.addAndGet(-message.getPayloadLength());
+            owner.onBuffered(-1);
+            return message;
+        }
+
+        Iterator<WebSocketMessage<?>> coalescedMessagesIterator = coalescedMessages.values().iterator();
+        if (coalescedMessagesIterator.hasNext()) {
+            message = coalescedMessagesIterator.next();
+            coalescedMessagesIterator.remove();
+        }
+        return message;
+    }
+
+    private void drop() {
+        droppedMessages.increment();
+        owner.onDropped();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            owner.getSender().execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        try {
+            WebSocketMessage<?> message;
+            while (!closed && (message = poll()) != null) {
+                sendStartedAt = System.currentTimeMillis();
+                long sendStartedAtNanos = System.nanoTime();
+                session.sendMessage(message);
+                owner.onSent(System.nanoTime() - sendStartedAtNanos);
+                sendStartedAt = 0;
+            }
+        } catch (Exception e) {
+            if (session.isOpen()) {
+                logger.error("Exception during sending to session {}: {}", session.getId(), ExceptionUtils.getStackTrace(e));
+                disconnect("send failed");
+            } else {
+                closed = true; // closed by the client meanwhile, not a slow consumer
+            }
+        } finally {
+            sendStartedAt = 0;
+            flushScheduled.set(false);
+        }
+
+        // message could have been buffered after the last poll but before the flag was cleared
+        if (!closed && (!messages.isEmpty() || !coalescedMessages.isEmpty())) {
+            scheduleFlush();
+        }
+    }
+
+    private void disconnect(String reason) {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        logger.info("Slow consumer detected: {}, reason: {}, closing it...", session.getId(), reason);
+        owner.onSlowConsumerDisconnected();
+        owner.getSender().execute(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE); // triggers afterConnectionClose()
+            } catch (Exception e) {
+                logger.error("Exception during closing the slow session: {}", session.getId());
+            }
+        });
+    }
+
+    // called when the session has been closed, releases the buffered messages
+    void discard() {
+        closed = true;
+        WebSocketMessage<?> message;
+        while ((message = messages.poll()) != null) {
+            bufferedMessages.decrementAndGet();
+            bufferedBytes.addAndGet(-message.getPayloadLength());
+            owner.onBuffered(-1);
+        }
+        coalescedMessages.clear();
+    }
+}
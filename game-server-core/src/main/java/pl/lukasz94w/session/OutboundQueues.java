@@ -0,0 +1,128 @@
+package pl.lukasz94w.session;
+
+import lombok.Getter;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import pl.lukasz94w.configuration.OutboundQueueConfig;
+import pl.lukasz94w.metrics.GameServerMetrics;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Outbound queues of all the open sessions. Queues are written by the virtual sender threads, one at a time per
+// session, so a blocked write costs only its own thread. Backlog of every session and of the whole server is
+// tracked, so the slow consumers can be spotted and overload detected.
+public class OutboundQueues {
+
+    private final Map<String, OutboundQueue> queuesBySessionId;
+
+    @Getter
+    private final ExecutorService sender;
+
+    @Getter
+    private final int bufferSizeLimit;
+
+    @Getter
+    private final long sendTimeLimit;
+
+    @Getter
+    private final OverflowPolicy overflowPolicy;
+
+    private final LongAdder numberOfBufferedMessages;
+
+    private final LongAdder numberOfDroppedMessages;
+
+    private final LongAdder numberOfSlowConsumerDisconnections;
+
+    private final GameServerMetrics gameServerMetrics;
+
+    public OutboundQueues(OutboundQueueConfig config, GameServerMetrics gameServerMetrics) {
+        queuesBySessionId = new ConcurrentHashMap<>();
+        sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("session-sender-", 0).factory());
+        bufferSizeLimit = config.bufferSizeLimit;
+        sendTimeLimit = config.sendTimeLimit;
+        overflowPolicy = config.overflowPolicy;
+        numberOfBufferedMessages = new LongAdder();
+        numberOfDroppedMessages = new LongAdder();
+        numberOfSlowConsumerDisconnections = new LongAdder();
+        this.gameServerMetrics = gameServerMetrics;
+    }
+
+    // called when the session is established (also the rejected one), before anything is sent to it
+    public void register(WebSocketSession session) {
+        queuesBySessionId.put(session.getId(), new OutboundQueue(session, this));
+    }
+
+    // messages to the sessions already closed (i.e. the opponent closing at the same time) are dropped, so no queue
+    // is created for them again
+    public void send(WebSocketSession session, String messageType, WebSocketMessage<?> message) {
+        OutboundQueue queue = queuesBySessionId.get(session.getId());
+        if (queue != null && session.isOpen()) {
+            queue.send(messageType, message);
+        }
+    }
+
+    public Optional<OutboundQueue> find(WebSocketSession session) {
+        return Optional.ofNullable(queuesBySessionId.get(session.getId()));
+    }
+
+    // called when the session has been closed
+    public void remove(WebSocketSession session) {
+        OutboundQueue queue = queuesBySessionId.remove(session.getId());
+        if (queue != null) {
+            queue.discard();
+        }
+    }
+
+    public int getNumberOfQueues() {
+        return queuesBySessionId.size();
+    }
+
+    public long getNumberOfBufferedMessages() {
+        return numberOfBufferedMessages.sum();
+    }
+
+    public int getMaxBufferedBytes() {
+        return queuesBySessionId.values().stream().mapToInt(OutboundQueue::getBufferedBytes).max().orElse(0);
+    }
+
+    public long getNumberOfDroppedMessages() {
+        return numberOfDroppedMessages.sum();
+    }
+
+    public long getNumberOfSlowConsumerDisconnections() {
+        return numberOfSlowConsumerDisconnections.sum();
+    }
+
+    public void shutdown() {
+        sender.shutdown();
+        try {
+            if (!sender.awaitTermination(5, TimeUnit.SECONDS)) {
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void onBuffered(int numberOfMessages) {
+        numberOfBufferedMessages.add(numberOfMessages);
+    }
+
+    void onSent(long sendTimeNanos) {
+        gameServerMetrics.recordOutboundSend(sendTimeNanos);
+    }
+
+    void onDropped() {
+        numberOfDroppedMessages.increment();
+    }
+
+    void onSlowConsumerDisconnected() {
+        numberOfSlowConsumerDisconnections.increment();
+    }
+}
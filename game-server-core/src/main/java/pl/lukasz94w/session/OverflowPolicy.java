@@ -0,0 +1,12 @@
+package pl.lukasz94w.session;
+
+// What happens to the message which doesn't fit into the full outbound queue of a session. Game messages can't be
+// skipped, so whatever the policy, a session which can't take them anymore is disconnected.
+public enum OverflowPolicy {
+    // chat messages and heartbeat confirmations are dropped
+    DROP_CHAT,
+    // only the latest chat message and heartbeat confirmation is kept, it replaces the one still waiting
+    COALESCE,
+    // session is closed
+    DISCONNECT
+}
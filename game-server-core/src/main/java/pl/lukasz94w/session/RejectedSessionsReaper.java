@@ -0,0 +1,66 @@
+package pl.lukasz94w.session;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.WebSocketSession;
+import pl.lukasz94w.scheduler.HashedTimingWheel;
+import pl.lukasz94w.scheduler.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Closes the rejected sessions which haven't been closed by the clients themselves after receiving the rejection
+// message. Closes are only scheduled in the shared timing wheel, so rejecting a session never blocks the handshake.
+public class RejectedSessionsReaper {
+
+    private final Logger logger = LoggerFactory.getLogger(RejectedSessionsReaper.class);
+
+    private final HashedTimingWheel timingWheel;
+
+    private final long closeDelay;
+
+    private final Map<String, Timeout> pendingCloses;
+
+    public RejectedSessionsReaper(HashedTimingWheel timingWheel, long closeDelay) {
+        this.timingWheel = timingWheel;
+        this.closeDelay = closeDelay;
+        pendingCloses = new ConcurrentHashMap<>();
+    }
+
+    public void track(WebSocketSession session) {
+        Timeout close = timingWheel.schedule(() -> close(session), closeDelay);
+        Timeout previousClose = pendingCloses.put(session.getId(), close);
+        if (previousClose != null) {
+            previousClose.cancel();
+        }
+    }
+
+    // called when the session has been closed, returns true if it was the rejected one
+    public boolean untrack(WebSocketSession session) {
+        Timeout close = pendingCloses.remove(session.getId());
+        if (close == null) {
+            return false;
+        }
+
+        close.cancel();
+        return true;
+    }
+
+    public int getNumberOfPendingCloses() {
+        return pendingCloses.size();
+    }
+
+    private void close(WebSocketSession session) {
+        pendingCloses.remove(session.getId());
+
+        try {
+            if (session.isOpen()) {
+                logger.info("Rejected session {} still open, closing it...", session.getId());
+                session.close(); // triggers afterConnectionClose()
+            }
+        } catch (Exception e) {
+            logger.error("Exception during closing the rejected session: {}", ExceptionUtils.getStackTrace(e));
+        }
+    }
+}
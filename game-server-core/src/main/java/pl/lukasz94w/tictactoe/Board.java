@@ -0,0 +1,17 @@
+package pl.lukasz94w.tictactoe;
+
+import java.time.ZonedDateTime;
+
+// Game engine played on the board, squares are numbered row by row starting from 0.
+public interface Board {
+
+    void updateState(String squareNumberAsString, String squareValue);
+
+    Tictactoe.Result checkWhetherGameEnded();
+
+    ZonedDateTime getGameStartedUTC();
+
+    ZonedDateTime getGameEndedUTC();
+
+    int getNumberOfWinningMovements();
+}
@@ -0,0 +1,28 @@
+package pl.lukasz94w.tictactoe;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+@Getter
+public enum BoardVariant {
+    TICTACTOE(3, 3, 3),
+    GOMOKU(15, 15, 5);
+
+    private final int rows;
+
+    private final int columns;
+
+    private final int winningLength;
+
+    BoardVariant(int rows, int columns, int winningLength) {
+        this.rows = rows;
+        this.columns = columns;
+        this.winningLength = winningLength;
+    }
+
+    public static Optional<BoardVariant> fromName(String name) {
+        return Arrays.stream(values()).filter(variant -> variant.name().equalsIgnoreCase(name)).findFirst();
+    }
+}
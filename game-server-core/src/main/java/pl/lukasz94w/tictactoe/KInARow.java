@@ -0,0 +1,155 @@
+package pl.lukasz94w.tictactoe;
+
+import lombok.Getter;
+import pl.lukasz94w.exception.TictactoeException;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+// Generalization of the tictactoe for the bigger boards (i.e. gomoku: 15x15, five in a row). Squares are packed
+// by 2 bits into the long array (32 squares per long), so even the big board takes only a few words. Only the
+// four lines crossing the last marked square are checked for the win, so a move costs O(k) instead of O(board).
+public class KInARow implements Board {
+
+    private static final String FIRST_PLAYER_SYMBOL = "X";
+
+    private static final String SECOND_PLAYER_SYMBOL = "O";
+
+    private static final int EMPTY = 0;
+
+    private static final int FIRST_PLAYER = 1;
+
+    private static final int SECOND_PLAYER = 2;
+
+    private static final int SQUARES_PER_WORD = 32;
+
+    // row and column steps of horizontal, vertical and both diagonal lines
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final int rows;
+
+    private final int columns;
+
+    private final int winningLength;
+
+    private final long[] squares;
+
+    private final int[] numberOfMarkedSquares; // indexed by player, EMPTY slot is unused
+
+    private int lastMarkedSquareNumber;
+
+    @Getter
+    private final ZonedDateTime gameStartedUTC;
+
+    @Getter
+    private ZonedDateTime gameEndedUTC;
+
+    @Getter
+    private int numberOfWinningMovements;
+
+    KInARow(int rows, int columns, int winningLength) {
+        this.rows = rows;
+        this.columns = columns;
+        this.winningLength = winningLength;
+        squares = new long[(rows * columns + SQUARES_PER_WORD - 1) / SQUARES_PER_WORD];
+        numberOfMarkedSquares = new int[3];
+        lastMarkedSquareNumber = -1;
+        gameStartedUTC = getCurrentUTCZonedDateTime();
+    }
+
+    @Override
+    public void updateState(String squareNumberAsString, String squareValue) {
+        int squareNumber = Integer.parseInt(squareNumberAsString);
+        validateSquareNumber(squareNumber);
+        int player = toPlayer(squareValue);
+        validateOccupancy(squareNumber);
+
+        setSquare(squareNumber, player);
+        numberOfMarkedSquares[player]++;
+        lastMarkedSquareNumber = squareNumber;
+    }
+
+    @Override
+    public Tictactoe.Result checkWhetherGameEnded() {
+        if (lastMarkedSquareNumber < 0) {
+            return Tictactoe.Result.ONGOING;
+        }
+
+        int player = getSquare(lastMarkedSquareNumber);
+        if (isWinningSquare(lastMarkedSquareNumber, player)) {
+            numberOfWinningMovements = numberOfMarkedSquares[player];
+            gameEndedUTC = getCurrentUTCZonedDateTime();
+            return player == FIRST_PLAYER ? Tictactoe.Result.FIRST_PLAYER_WON : Tictactoe.Result.SECOND_PLAYER_WON;
+        }
+
+        if (numberOfMarkedSquares[FIRST_PLAYER] + numberOfMarkedSquares[SECOND_PLAYER] == rows * columns) {
+            gameEndedUTC = getCurrentUTCZonedDateTime();
+            return Tictactoe.Result.UNRESOLVED;
+        }
+
+        return Tictactoe.Result.ONGOING;
+    }
+
+    private boolean isWinningSquare(int squareNumber, int player) {
+        int row = squareNumber / columns;
+        int column = squareNumber % columns;
+
+        for (int[] direction : DIRECTIONS) {
+            int lineLength = 1 + countInDirection(row, column, direction[0], direction[1], player) + countInDirection(row, column, -direction[0], -direction[1], player);
+            if (lineLength >= winningLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // counts the player's squares following the given one, at most winningLength - 1 are needed
+    private int countInDirection(int row, int column, int rowStep, int columnStep, int player) {
+        int count = 0;
+        int currentRow = row + rowStep;
+        int currentColumn = column + columnStep;
+
+        while (count < winningLength - 1 && currentRow >= 0 && currentRow < rows && currentColumn >= 0 && currentColumn < columns
+                && getSquare(currentRow * columns + currentColumn) == player) {
+            count++;
+            currentRow += rowStep;
+            currentColumn += columnStep;
+        }
+        return count;
+    }
+
+    private int getSquare(int squareNumber) {
+        return (int) (squares[squareNumber / SQUARES_PER_WORD] >>> ((squareNumber % SQUARES_PER_WORD) * 2)) & 0b11;
+    }
+
+    private void setSquare(int squareNumber, int player) {
+        squares[squareNumber / SQUARES_PER_WORD] |= (long) player << ((squareNumber % SQUARES_PER_WORD) * 2);
+    }
+
+    private void validateSquareNumber(int squareNumber) {
+        if (squareNumber < 0 || squareNumber >= rows * columns) {
+            throw new TictactoeException("Square number must be a value between 0 and " + (rows * columns - 1));
+        }
+    }
+
+    private int toPlayer(String squareValue) {
+        if (squareValue.equals(FIRST_PLAYER_SYMBOL)) {
+            return FIRST_PLAYER;
+        }
+        if (squareValue.equals(SECOND_PLAYER_SYMBOL)) {
+            return SECOND_PLAYER;
+        }
+        throw new TictactoeException("Wrong square value. Accepted: " + FIRST_PLAYER_SYMBOL + " or " + SECOND_PLAYER_SYMBOL);
+    }
+
+    private void validateOccupancy(int squareNumber) {
+        int player = getSquare(squareNumber);
+        if (player != EMPTY) {
+            throw new TictactoeException("Square already marked by: " + (player == FIRST_PLAYER ? FIRST_PLAYER_SYMBOL : SECOND_PLAYER_SYMBOL));
+        }
+    }
+
+    private ZonedDateTime getCurrentUTCZonedDateTime() {
+        return ZonedDateTime.now(ZoneId.of("Europe/London"));
+    }
+}
@@ -5,10 +5,10 @@ import pl.lukasz94w.exception.TictactoeException;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
-public class Tictactoe {
+// Board is kept as two 9-bit masks (bit n set = square n marked by the player). Checking the occupancy is a single
+// AND, the win is one lookup in the table precomputed for all 512 possible boards of a player.
+public class Tictactoe implements Board {
 
     private static int totalTictactoeNumber;
 
@@ -16,7 +16,19 @@ public class Tictactoe {
 
     private static final String SECOND_PLAYER_SYMBOL = "O";
 
-    private final Map<Integer, String> boardState;
+    private static final int FULL_BOARD = 0b111_111_111;
+
+    private static final int[] WINNING_LINES = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000, // rows
+            0b001_001_001, 0b010_010_010, 0b100_100_100, // columns
+            0b100_010_001, 0b001_010_100                 // diagonals
+    };
+
+    private static final boolean[] WINNING_BOARDS = precomputeWinningBoards();
+
+    private int firstPlayerBoard;
+
+    private int secondPlayerBoard;
 
     @Getter
     private final ZonedDateTime gameStartedUTC;
@@ -28,7 +40,6 @@ public class Tictactoe {
     private int numberOfWinningMovements;
 
     Tictactoe() {
-        boardState = new HashMap<>();
         gameStartedUTC = getCurrentUTCZonedDateTime();
         totalTictactoeNumber++;
         numberOfWinningMovements = 0;
@@ -36,15 +47,21 @@ public class Tictactoe {
 
     // there could be also implemented features like tracking the actual player turn
     // and throwing exception when there is a try of changing board state by unauthorized player
+    @Override
     public void updateState(String squareNumberAsString, String squareValue) {
-        Integer squareNumber = Integer.parseInt(squareNumberAsString);
+        int squareNumber = Integer.parseInt(squareNumberAsString);
         validateSquareNumber(squareNumber);
         validateSquareValue(squareValue);
         validateOccupancy(squareNumber);
-        boardState.put(squareNumber, squareValue);
+
+        if (squareValue.equals(FIRST_PLAYER_SYMBOL)) {
+            firstPlayerBoard |= 1 << squareNumber;
+        } else {
+            secondPlayerBoard |= 1 << squareNumber;
+        }
     }
 
-    private void validateSquareNumber(Integer squareNumber) {
+    private void validateSquareNumber(int squareNumber) {
         if (squareNumber < 0 || squareNumber > 8) {
             throw new TictactoeException("Square number must be a value between 0 or 8");
         }
@@ -56,50 +73,31 @@ public class Tictactoe {
         }
     }
 
-    private void validateOccupancy(Integer squareNumber) {
-        if (boardState.containsKey(squareNumber)) {
-            String value = boardState.get(squareNumber);
-            throw new TictactoeException("Square already marked by: " + value);
+    private void validateOccupancy(int squareNumber) {
+        int square = 1 << squareNumber;
+        if ((firstPlayerBoard & square) != 0) {
+            throw new TictactoeException("Square already marked by: " + FIRST_PLAYER_SYMBOL);
+        }
+        if ((secondPlayerBoard & square) != 0) {
+            throw new TictactoeException("Square already marked by: " + SECOND_PLAYER_SYMBOL);
         }
     }
 
+    @Override
     public Result checkWhetherGameEnded() {
-        int[][] winningCombinations = {
-                {0, 1, 2},
-                {3, 4, 5},
-                {6, 7, 8},
-                {0, 3, 6},
-                {1, 4, 7},
-                {2, 5, 8},
-                {0, 4, 8},
-                {2, 4, 6}
-        };
-
-        for (int[] combination : winningCombinations) {
-            int a = combination[0];
-            int b = combination[1];
-            int c = combination[2];
-
-            if (boardState.containsKey(a) && boardState.containsKey(b) && boardState.containsKey(c)) {
-                String valueA = boardState.get(a);
-                String valueB = boardState.get(b);
-                String valueC = boardState.get(c);
-
-                if (valueA.equals(valueB) && valueA.equals(valueC)) {
-                    if (valueA.equals(FIRST_PLAYER_SYMBOL)) {
-                        numberOfWinningMovements = getNumberOfWinningMovements(FIRST_PLAYER_SYMBOL);
-                        gameEndedUTC = getCurrentUTCZonedDateTime();
-                        return Result.FIRST_PLAYER_WON;
-                    } else {
-                        numberOfWinningMovements = getNumberOfWinningMovements(SECOND_PLAYER_SYMBOL);
-                        gameEndedUTC = getCurrentUTCZonedDateTime();
-                        return Result.SECOND_PLAYER_WON;
-                    }
-                }
-            }
+        if (WINNING_BOARDS[firstPlayerBoard]) {
+            numberOfWinningMovements = Integer.bitCount(firstPlayerBoard);
+            gameEndedUTC = getCurrentUTCZonedDateTime();
+            return Result.FIRST_PLAYER_WON;
         }
 
-        if (boardState.size() == 9) {
+        if (WINNING_BOARDS[secondPlayerBoard]) {
+            numberOfWinningMovements = Integer.bitCount(secondPlayerBoard);
+            gameEndedUTC = getCurrentUTCZonedDateTime();
+            return Result.SECOND_PLAYER_WON;
+        }
+
+        if ((firstPlayerBoard | secondPlayerBoard) == FULL_BOARD) {
             gameEndedUTC = getCurrentUTCZonedDateTime();
             return Result.UNRESOLVED;
         }
@@ -111,11 +109,17 @@ public class Tictactoe {
         return ZonedDateTime.now(ZoneId.of("Europe/London"));
     }
 
-    private int getNumberOfWinningMovements(String winnerSymbol) {
-        return (int) boardState.values()
-                .stream()
-                .filter(symbol -> symbol.equals(winnerSymbol))
-                .count();
+    private static boolean[] precomputeWinningBoards() {
+        boolean[] winningBoards = new boolean[FULL_BOARD + 1];
+        for (int board = 0; board <= FULL_BOARD; board++) {
+            for (int winningLine : WINNING_LINES) {
+                if ((board & winningLine) == winningLine) {
+                    winningBoards[board] = true;
+                    break;
+                }
+            }
+        }
+        return winningBoards;
     }
 
     public enum Result {
@@ -8,4 +8,12 @@ public class TictactoeFactory {
     public static Tictactoe createTictactoe() {
         return new Tictactoe();
     }
+
+    public static Board createBoard(BoardVariant variant) {
+        if (variant == BoardVariant.TICTACTOE) {
+            return createTictactoe(); // bit mask engine is faster for the 3x3 board
+        }
+
+        return new KInARow(variant.getRows(), variant.getColumns(), variant.getWinningLength());
+    }
 }
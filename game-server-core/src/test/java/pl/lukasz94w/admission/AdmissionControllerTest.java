@@ -0,0 +1,82 @@
+package pl.lukasz94w.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.lukasz94w.configuration.AdmissionControlConfig;
+import pl.lukasz94w.configuration.OutboundQueueConfig;
+import pl.lukasz94w.eventloop.EventLoopGroup;
+import pl.lukasz94w.exception.GameServerAccessDeniedException;
+import pl.lukasz94w.metrics.GameServerMetrics;
+import pl.lukasz94w.scheduler.HashedTimingWheel;
+import pl.lukasz94w.session.OutboundQueues;
+import pl.lukasz94w.session.OverflowPolicy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+
+    private EventLoopGroup eventLoopGroup;
+
+    private OutboundQueues outboundQueues;
+
+    private HashedTimingWheel timingWheel;
+
+    private AdmissionController admissionController;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionControlConfig config = new AdmissionControlConfig();
+        config.minLimit = 1;
+        config.initialLimit = 10;
+        config.maxLimit = 20;
+        config.adjustmentInterval = 60000L;
+        config.maxEventLoopLatency = 100L;
+        config.maxEventLoopBacklog = 1000;
+        config.maxSendBacklog = 1000;
+        config.maxCpuLoad = 1.0;
+        config.decreaseFactor = 0.5;
+        config.handshakeBurst = 2;
+        config.handshakeRefillPeriod = 60000L;
+        config.retryAfter = 5L;
+
+        OutboundQueueConfig outboundQueueConfig = new OutboundQueueConfig();
+        outboundQueueConfig.bufferSizeLimit = 1024;
+        outboundQueueConfig.sendTimeLimit = 1000L;
+        outboundQueueConfig.overflowPolicy = OverflowPolicy.DISCONNECT;
+
+        eventLoopGroup = new EventLoopGroup(1);
+        outboundQueues = new OutboundQueues(outboundQueueConfig, new GameServerMetrics(new SimpleMeterRegistry()));
+        timingWheel = new HashedTimingWheel(10, 64);
+        admissionController = new AdmissionController(config, eventLoopGroup, outboundQueues, timingWheel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        admissionController.stop();
+        timingWheel.stop();
+        outboundQueues.shutdown();
+        eventLoopGroup.shutdown();
+    }
+
+    @Test
+    void shouldRejectReconnectStormOfSingleUserWithRetryAfterHint() {
+        admissionController.admit("player", 0);
+        admissionController.admit("player", 0);
+
+        GameServerAccessDeniedException rejection = assertThrows(GameServerAccessDeniedException.class, () -> admissionController.admit("player", 0));
+        assertEquals(60, rejection.getRetryAfter());
+
+        admissionController.admit("anotherPlayer", 0);
+    }
+
+    @Test
+    void shouldRejectPlayersAboveLimitWithJitteredRetryAfter() {
+        admissionController.admit("player", 9);
+
+        GameServerAccessDeniedException rejection = assertThrows(GameServerAccessDeniedException.class, () -> admissionController.admit("anotherPlayer", 10));
+        assertTrue(rejection.getRetryAfter() >= 5 && rejection.getRetryAfter() <= 10);
+        assertEquals(10, admissionController.getLimit());
+    }
+}
@@ -0,0 +1,82 @@
+package pl.lukasz94w.codec;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import pl.lukasz94w.exception.MessageFormatException;
+import pl.lukasz94w.exception.MissingParameterException;
+import pl.lukasz94w.tictactoe.Tictactoe;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.HEARTBEAT;
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.PLAYER_MOVE;
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.FIRST_PLAYER;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.SECOND_PLAYER;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.*;
+
+class BinaryMessageCodecTest {
+
+    private final BinaryMessageCodec messageCodec = new BinaryMessageCodec();
+
+    @Test
+    void shouldDecodeSquareOfGameUpdateConfirmation() {
+        IncomingMessage incomingMessage = messageCodec.decode(new BinaryMessage(new byte[]{0x04, 'O', 0x00, (byte) 0xE0}));
+
+        assertSame(PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION, incomingMessage.getType());
+        assertEquals("O", incomingMessage.getSquareValue());
+        assertEquals("224", incomingMessage.getSquareNumber());
+        assertEquals("O224", incomingMessage.getData());
+    }
+
+    @Test
+    void shouldDecodeMessageWithoutPayloadAndRejectTruncatedOnes() {
+        assertSame(HEARTBEAT, messageCodec.decode(new BinaryMessage(new byte[]{0x03})).getType());
+
+        assertThrows(MissingParameterException.class, () -> messageCodec.decode(new BinaryMessage(new byte[0])));
+        assertThrows(MissingParameterException.class, () -> messageCodec.decode(new BinaryMessage(new byte[]{0x02, 'X'})));
+        assertThrows(MessageFormatException.class, () -> messageCodec.decode(new BinaryMessage(new byte[]{0x02, 'Z', 0x00, 0x01})));
+    }
+
+    @Test
+    void shouldEncodeCompactPayloads() {
+        assertArrayEquals(new byte[]{0x13, 'X', 0x00, 0x0C}, toBytes(messageCodec.encode(GAME_UPDATED, "X12")));
+        assertArrayEquals(new byte[]{0x12, 0x02}, toBytes(messageCodec.encode(GAME_STARTED, SECOND_PLAYER)));
+        assertArrayEquals(new byte[]{0x12, 0x01, 't', 'k'}, toBytes(messageCodec.encodeWithResumeToken(GAME_STARTED, FIRST_PLAYER, "tk")));
+        assertArrayEquals(new byte[]{0x15, (byte) Tictactoe.Result.UNRESOLVED.ordinal()}, toBytes(messageCodec.encode(GAME_ENDED, Tictactoe.Result.UNRESOLVED.message())));
+        assertArrayEquals(new byte[]{0x11, 'h', 'i'}, toBytes(messageCodec.encode(OPPONENT_MESSAGE, "hi")));
+    }
+
+    @Test
+    void shouldDecodeMoveAndEncodeItsResult() {
+        IncomingMessage incomingMessage = messageCodec.decode(new BinaryMessage(new byte[]{0x05, 0x00, 0x00, 0x00, 0x03, 0x00, 0x04}));
+
+        assertSame(PLAYER_MOVE, incomingMessage.getType());
+        assertEquals(3, incomingMessage.getMoveSequenceNumber());
+        assertEquals("4", incomingMessage.getSquareNumber());
+        assertEquals("3:4", incomingMessage.getData());
+
+        assertArrayEquals(new byte[]{0x19, 0x00, 0x00, 0x00, 0x03, 'O', 0x00, 0x04}, toBytes(messageCodec.encode(MOVE_APPLIED, "3:O4")));
+        assertArrayEquals(new byte[]{0x1A, 'n', 'o'}, toBytes(messageCodec.encode(MOVE_REJECTED, "no")));
+    }
+
+    @Test
+    void shouldEncodeRestoredGameWithItsMoves() {
+        assertArrayEquals(new byte[]{0x1B, 0x02, 0x02, 't', 'k', 'X', 0x00, 0x04, 'O', 0x00, 0x00}, toBytes(messageCodec.encodeWithResumeToken(GAME_RESTORED, SECOND_PLAYER + ";X4,O0", "tk")));
+        assertArrayEquals(new byte[]{0x1B, 0x01, 0x00}, toBytes(messageCodec.encode(GAME_RESTORED, FIRST_PLAYER + ";")));
+    }
+
+    @Test
+    void shouldRejectMalformedGameUpdate() {
+        assertThrows(MessageFormatException.class, () -> messageCodec.encode(GAME_UPDATED, "X"));
+        assertThrows(MessageFormatException.class, () -> messageCodec.encode(GAME_UPDATED, "Xab"));
+    }
+
+    private byte[] toBytes(BinaryMessage message) {
+        ByteBuffer payload = message.getPayload().duplicate();
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,90 @@
+package pl.lukasz94w.codec;
+
+import org.junit.jupiter.api.Test;
+import pl.lukasz94w.exception.MessageFormatException;
+import pl.lukasz94w.exception.MissingParameterException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.GAME_UPDATE;
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.HEARTBEAT;
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.PLAYER_MOVE;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.FIRST_PLAYER;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.OPPONENT_RECEIVED_UPDATE;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.GAME_STARTED;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.OPPONENT_MESSAGE;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION;
+
+class JsonMessageCodecTest {
+
+    private final JsonMessageCodec messageCodec = new JsonMessageCodec();
+
+    @Test
+    void shouldDecodeKnownMessageTypeToTheConstant() {
+        IncomingMessage incomingMessage = messageCodec.decode("{\"data\":\"4\", \"messageType\" : \"gameUpdate\"}");
+
+        assertSame(GAME_UPDATE, incomingMessage.getType());
+        assertEquals("4", incomingMessage.getData());
+    }
+
+    @Test
+    void shouldDecodeEscapedDataAndSkipUnknownKeys() {
+        IncomingMessage incomingMessage = messageCodec.decode("{\"messageType\":\"playerMessage\",\"extra\":{\"a\":[1,\"}\"]},\"data\":\"say \\\"hi\\\"\\n\\u0041\"}");
+
+        assertEquals("say \"hi\"\nA", incomingMessage.getData());
+    }
+
+    @Test
+    void shouldRejectMessageWithoutType() {
+        assertThrows(MissingParameterException.class, () -> messageCodec.decode("{\"data\":\"4\"}"));
+        assertThrows(MissingParameterException.class, () -> messageCodec.decode("{}"));
+    }
+
+    @Test
+    void shouldRejectMalformedMessage() {
+        assertThrows(MessageFormatException.class, () -> messageCodec.decode("{\"messageType\":\"heartbeat\""));
+        assertThrows(MessageFormatException.class, () -> messageCodec.decode("[]"));
+    }
+
+    @Test
+    void shouldThrowOnlyWhenMissingDataIsRead() {
+        IncomingMessage incomingMessage = messageCodec.decode("{\"messageType\":\"heartbeat\"}");
+
+        assertSame(HEARTBEAT, incomingMessage.getType());
+        assertThrows(MissingParameterException.class, incomingMessage::getData);
+    }
+
+    @Test
+    void shouldReuseConstantMessagesAndEscapeVariableOnes() {
+        assertSame(messageCodec.encode(OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION, OPPONENT_RECEIVED_UPDATE), messageCodec.encode(OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION, OPPONENT_RECEIVED_UPDATE));
+
+        String payload = messageCodec.encode(OPPONENT_MESSAGE, "a\"b\\c\u0001").getPayload();
+        assertEquals("{\"messageType\":\"opponentMessage\",\"data\":\"a\\\"b\\\\c\\u0001\"}", payload);
+        assertEquals("a\"b\\c\u0001", messageCodec.decode(payload).getData());
+    }
+
+    @Test
+    void shouldAddRetryAfterToSessionRejection() {
+        assertEquals("{\"messageType\":\"sessionRejected\",\"data\":\"Try again later\",\"retryAfter\":7}", messageCodec.encodeSessionRejection("Try again later", 7).getPayload());
+        assertEquals("{\"messageType\":\"sessionRejected\",\"data\":\"No retry\"}", messageCodec.encodeSessionRejection("No retry", 0).getPayload());
+    }
+
+    @Test
+    void shouldSendResumeTokenNextToUnchangedData() {
+        String payload = messageCodec.encodeWithResumeToken(GAME_STARTED, FIRST_PLAYER, "tk").getPayload();
+
+        assertEquals("{\"messageType\":\"gameStarted\",\"data\":\"1st player\",\"resumeToken\":\"tk\"}", payload);
+        assertEquals(FIRST_PLAYER, messageCodec.decode(payload).getData());
+    }
+
+    @Test
+    void shouldReadSequenceNumberAndSquareOfMove() {
+        IncomingMessage incomingMessage = messageCodec.decode("{\"messageType\":\"playerMove\",\"data\":\"12:104\"}");
+
+        assertSame(PLAYER_MOVE, incomingMessage.getType());
+        assertEquals(12, incomingMessage.getMoveSequenceNumber());
+        assertEquals("104", incomingMessage.getSquareNumber());
+
+        assertThrows(MessageFormatException.class, () -> messageCodec.decode("{\"messageType\":\"playerMove\",\"data\":\"4\"}").getSquareNumber());
+        assertThrows(MessageFormatException.class, () -> messageCodec.decode("{\"messageType\":\"playerMove\",\"data\":\"x:4\"}").getMoveSequenceNumber());
+    }
+}
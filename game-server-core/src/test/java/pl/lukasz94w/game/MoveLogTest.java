@@ -0,0 +1,28 @@
+package pl.lukasz94w.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveLogTest {
+
+    @Test
+    void shouldPackSquarePlayerAndTimeOfEveryMove() throws InterruptedException {
+        MoveLog moveLog = new MoveLog();
+        moveLog.add(4, true);
+        Thread.sleep(100);
+        moveLog.add(224, false);
+
+        byte[] encodedMoves = moveLog.toByteArray();
+
+        assertEquals(4, encodedMoves[0]);
+        assertEquals(0, encodedMoves[1] & 1);
+        assertEquals(0, encodedMoves[1] & 0x80, "first move made at once fits into a single byte");
+
+        assertEquals(224, encodedMoves[2] & 0xFF);
+        long value = encodedMoves[3] & 0x7F | (long) (encodedMoves[4] & 0x7F) << 7;
+        assertEquals(1, value & 1);
+        assertTrue((value >> 1) >= 100);
+        assertEquals(5, encodedMoves.length);
+    }
+}
@@ -0,0 +1,159 @@
+package pl.lukasz94w.history;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import pl.lukasz94w.configuration.HistoryOutboxConfig;
+import pl.lukasz94w.dto.http.request.FinishedGameData;
+import pl.lukasz94w.metrics.GameServerMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FinishedGamesOutboxTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    private Path spillDirectory;
+
+    @Test
+    void shouldNotResendGamesAcceptedOneByOne() throws Exception {
+        Files.write(spillDirectory.resolve("finished-games.jsonl"), List.of(serialize("first"), serialize("second"), serialize("third")));
+        CountDownLatch posts = new CountDownLatch(4);
+        boolean[] secondFailed = {false};
+        FakeHistoryService historyService = new FakeHistoryService(posts, players -> {
+            if (players.size() == 3) {
+                return new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+            }
+            if (players.equals(List.of("second")) && !secondFailed[0]) {
+                secondFailed[0] = true;
+                return new ResourceAccessException("history-service unavailable");
+            }
+            return null;
+        });
+
+        FinishedGamesOutbox finishedGamesOutbox = new FinishedGamesOutbox(historyService, config(10), new GameServerMetrics(new SimpleMeterRegistry()));
+        assertTrue(posts.await(10, TimeUnit.SECONDS));
+        finishedGamesOutbox.stop();
+
+        assertEquals(List.of(List.of("first", "second", "third"), List.of("first"), List.of("second"), List.of("second", "third")), historyService.posts);
+    }
+
+    @Test
+    void shouldSpillGameWhichKeepsFailingAndSendTheNextOnes() throws Exception {
+        CountDownLatch failedPosts = new CountDownLatch(3);
+        CountDownLatch nextGamePosted = new CountDownLatch(1);
+        FakeHistoryService historyService = new FakeHistoryService(new CountDownLatch(0), players -> {
+            if (players.contains("failing")) {
+                failedPosts.countDown();
+                return new ResourceAccessException("history-service unavailable");
+            }
+            nextGamePosted.countDown();
+            return null;
+        });
+
+        FinishedGamesOutbox finishedGamesOutbox = new FinishedGamesOutbox(historyService, config(2), new GameServerMetrics(new SimpleMeterRegistry()));
+        finishedGamesOutbox.add(finishedGameData("failing"));
+        assertTrue(failedPosts.await(5, TimeUnit.SECONDS));
+        finishedGamesOutbox.add(finishedGameData("next"));
+        assertTrue(nextGamePosted.await(10, TimeUnit.SECONDS));
+        finishedGamesOutbox.stop();
+
+        assertTrue(historyService.posts.contains(List.of("next")));
+    }
+
+    @Test
+    void shouldRetryGameRejectedWithoutBeingInvalid() throws Exception {
+        CountDownLatch posts = new CountDownLatch(2);
+        boolean[] notFound = {false};
+        FakeHistoryService historyService = new FakeHistoryService(posts, players -> {
+            if (!notFound[0]) {
+                notFound[0] = true;
+                return new HttpClientErrorException(HttpStatus.NOT_FOUND); // i.e. history-service not registered in the gateway yet
+            }
+            return null;
+        });
+
+        FinishedGamesOutbox finishedGamesOutbox = new FinishedGamesOutbox(historyService, config(10), new GameServerMetrics(new SimpleMeterRegistry()));
+        finishedGamesOutbox.add(finishedGameData("first"));
+        assertTrue(posts.await(5, TimeUnit.SECONDS));
+        finishedGamesOutbox.stop();
+
+        assertEquals(List.of(List.of("first"), List.of("first")), historyService.posts);
+    }
+
+    private HistoryOutboxConfig config(int maxRetries) {
+        HistoryOutboxConfig config = new HistoryOutboxConfig();
+        config.capacity = 16;
+        config.batchSize = 16;
+        config.initialBackoff = 10L;
+        config.maxBackoff = 10L;
+        config.maxRetries = maxRetries;
+        config.spillFile = spillDirectory.resolve("finished-games.jsonl").toString();
+        return config;
+    }
+
+    private String serialize(String firstPlayerName) throws IOException {
+        return objectMapper.writeValueAsString(finishedGameData(firstPlayerName));
+    }
+
+    private FinishedGameData finishedGameData(String firstPlayerName) {
+        ZonedDateTime gameEndedUTC = ZonedDateTime.now();
+        return new FinishedGameData(firstPlayerName, "opponent", firstPlayerName, gameEndedUTC.minusMinutes(1), gameEndedUTC, 3, new byte[0]);
+    }
+
+    // records the first players of the posted games, responds with the exception returned by the given function
+    private class FakeHistoryService extends RestTemplate {
+
+        private final List<List<String>> posts = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch postsLatch;
+
+        private final Function<List<String>, RuntimeException> response;
+
+        private FakeHistoryService(CountDownLatch postsLatch, Function<List<String>, RuntimeException> response) {
+            this.postsLatch = postsLatch;
+            this.response = response;
+        }
+
+        @Override
+        public <T> ResponseEntity<T> postForEntity(String url, Object request, Class<T> responseType, Object... uriVariables) {
+            List<String> players = new ArrayList<>();
+            try {
+                for (JsonNode game : objectMapper.readTree((String) ((HttpEntity<?>) request).getBody())) {
+                    players.add(game.get("firstPlayerName").asText());
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+
+            posts.add(players);
+            postsLatch.countDown();
+            RuntimeException exception = response.apply(players);
+            if (exception != null) {
+                throw exception;
+            }
+            return ResponseEntity.ok().build();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package pl.lukasz94w.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.lukasz94w.configuration.JournalConfig;
+import pl.lukasz94w.game.Game;
+import pl.lukasz94w.game.GameFactory;
+import pl.lukasz94w.game.GameMode;
+import pl.lukasz94w.game.GameSettings;
+import pl.lukasz94w.player.PlayerFactory;
+import pl.lukasz94w.tictactoe.BoardVariant;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameJournalTest {
+
+    @TempDir
+    private Path journalDirectory;
+
+    @Test
+    void shouldRecoverOngoingGamesWithTheirMoves() {
+        GameJournal gameJournal = new GameJournal(config());
+        Game ongoingGame = createGame("first", "second", new GameSettings(BoardVariant.GOMOKU, GameMode.AUTHORITATIVE));
+        Game endedGame = createGame("third", "fourth", GameSettings.DEFAULT);
+        gameJournal.gameStarted(ongoingGame);
+        gameJournal.gameStarted(endedGame);
+        gameJournal.moveApplied(ongoingGame.getId(), "X", "112");
+        gameJournal.moveApplied(endedGame.getId(), "X", "4");
+        gameJournal.moveApplied(ongoingGame.getId(), "O", "0");
+        gameJournal.gameEnded(endedGame.getId());
+        gameJournal.stop();
+
+        GameJournal restartedGameJournal = new GameJournal(config());
+        List<JournaledGame> recoveredGames = restartedGameJournal.getRecoveredGames();
+        restartedGameJournal.stop();
+
+        assertEquals(1, recoveredGames.size());
+        JournaledGame recoveredGame = recoveredGames.getFirst();
+        assertEquals(ongoingGame.getId(), recoveredGame.getGameId());
+        assertEquals(ongoingGame.getGameSettings(), recoveredGame.getGameSettings());
+        assertEquals("first", recoveredGame.getFirstPlayerName());
+        assertEquals("second", recoveredGame.getSecondPlayerName());
+        assertEquals(List.of("X112", "O0"), recoveredGame.getMoves());
+    }
+
+    @Test
+    void shouldSkipTornRecordAndKeepRecordsBeforeIt() throws IOException {
+        GameJournal gameJournal = new GameJournal(config());
+        Game game = createGame("first", "second", GameSettings.DEFAULT);
+        gameJournal.gameStarted(game);
+        gameJournal.moveApplied(game.getId(), "X", "4");
+        gameJournal.stop();
+
+        // last byte of the move record, as if the crash happened before it reached the disk
+        try (FileChannel channel = FileChannel.open(journalDirectory.resolve("games.journal"), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            int moveRecordEnd = 8 + header.flip().getInt() + 8 + 12;
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), moveRecordEnd - 1);
+        }
+
+        GameJournal restartedGameJournal = new GameJournal(config());
+        List<JournaledGame> recoveredGames = restartedGameJournal.getRecoveredGames();
+        restartedGameJournal.stop();
+
+        assertEquals(1, recoveredGames.size());
+        assertTrue(recoveredGames.getFirst().getMoves().isEmpty());
+    }
+
+    @Test
+    void shouldStopQueueingEventsWhenWriterFails() throws InterruptedException {
+        JournalConfig config = config();
+        config.fileSize = 256; // snapshot of a few games doesn't fit into it
+        GameJournal gameJournal = new GameJournal(config);
+        for (int i = 0; i < 20; i++) {
+            gameJournal.gameStarted(createGame("first" + i, "second" + i, GameSettings.DEFAULT));
+        }
+
+        for (int i = 0; i < 100 && !gameJournal.isFailed(); i++) {
+            Thread.sleep(20);
+        }
+        gameJournal.moveApplied(1, "X", "4");
+        gameJournal.stop();
+
+        assertTrue(gameJournal.isFailed());
+        assertEquals(0, gameJournal.getNumberOfPendingEvents());
+    }
+
+    private JournalConfig config() {
+        JournalConfig config = new JournalConfig();
+        config.file = journalDirectory.resolve("games.journal").toString();
+        config.fileSize = 4096;
+        config.snapshotInterval = 60000L;
+        config.recoveryTimeout = 60000L;
+        return config;
+    }
+
+    private Game createGame(String firstPlayerName, String secondPlayerName, GameSettings gameSettings) {
+        return GameFactory.createGame(PlayerFactory.createPlayer(null, firstPlayerName), PlayerFactory.createPlayer(null, secondPlayerName), gameSettings);
+    }
+}
@@ -0,0 +1,63 @@
+package pl.lukasz94w.scheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel timingWheel;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new HashedTimingWheel(10, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.stop();
+    }
+
+    @Test
+    void shouldRunTaskAfterItsDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long scheduledAt = System.nanoTime();
+
+        Timeout timeout = timingWheel.schedule(latch::countDown, 50);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledAt) >= 50);
+        assertTrue(timeout.isExpired());
+        assertEquals(0, timingWheel.getNumberOfPendingTimeouts());
+    }
+
+    @Test
+    void shouldRunTaskWithDelayLongerThanOneRoundOfTheWheel() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long scheduledAt = System.nanoTime();
+
+        timingWheel.schedule(latch::countDown, 250); // wheel makes the full round in 80 ms
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scheduledAt) >= 250);
+    }
+
+    @Test
+    void shouldNotRunCancelledTask() throws InterruptedException {
+        AtomicBoolean executed = new AtomicBoolean(false);
+
+        Timeout timeout = timingWheel.schedule(() -> executed.set(true), 30);
+        assertTrue(timeout.cancel());
+
+        Thread.sleep(100);
+        assertFalse(executed.get());
+        assertFalse(timeout.cancel());
+        assertEquals(0, timingWheel.getNumberOfPendingTimeouts());
+    }
+}
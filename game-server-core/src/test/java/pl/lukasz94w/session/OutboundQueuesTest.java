@@ -0,0 +1,130 @@
+package pl.lukasz94w.session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import pl.lukasz94w.configuration.OutboundQueueConfig;
+import pl.lukasz94w.metrics.GameServerMetrics;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.GAME_UPDATED;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.OPPONENT_MESSAGE;
+
+class OutboundQueuesTest {
+
+    private final CountDownLatch stalledSocket = new CountDownLatch(1);
+
+    private final CountDownLatch firstSendStarted = new CountDownLatch(1);
+
+    private final CountDownLatch sessionClosed = new CountDownLatch(1);
+
+    private OutboundQueues outboundQueues;
+
+    @AfterEach
+    void tearDown() {
+        stalledSocket.countDown();
+        outboundQueues.shutdown();
+    }
+
+    @Test
+    void shouldNotBlockCallerOnStalledSocketAndDropChatAboveLimit() throws InterruptedException {
+        outboundQueues = new OutboundQueues(config(8, 60000L, OverflowPolicy.DROP_CHAT), new GameServerMetrics(new SimpleMeterRegistry()));
+        WebSocketSession session = stalledSession();
+        outboundQueues.register(session);
+
+        outboundQueues.send(session, GAME_UPDATED, new TextMessage("X1")); // taken by the sender, which gets stuck
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+        outboundQueues.send(session, GAME_UPDATED, new TextMessage("X2"));
+        outboundQueues.send(session, OPPONENT_MESSAGE, new TextMessage("long chat message"));
+
+        OutboundQueue queue = outboundQueues.find(session).orElseThrow();
+        assertEquals(1, queue.getBufferedMessages());
+        assertEquals(1, queue.getDroppedMessages());
+        assertEquals(1, sessionClosed.getCount());
+
+        outboundQueues.send(session, GAME_UPDATED, new TextMessage("O12345678")); // game messages can't be dropped
+        assertTrue(sessionClosed.await(1, TimeUnit.SECONDS));
+        assertEquals(1, outboundQueues.getNumberOfSlowConsumerDisconnections());
+    }
+
+    @Test
+    void shouldDisconnectSlowConsumerAfterSendTimeLimit() throws InterruptedException {
+        outboundQueues = new OutboundQueues(config(1024, 20L, OverflowPolicy.COALESCE), new GameServerMetrics(new SimpleMeterRegistry()));
+        WebSocketSession session = stalledSession();
+        outboundQueues.register(session);
+
+        outboundQueues.send(session, GAME_UPDATED, new TextMessage("X1"));
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        outboundQueues.send(session, GAME_UPDATED, new TextMessage("O2"));
+
+        assertTrue(sessionClosed.await(1, TimeUnit.SECONDS));
+        assertEquals(1, outboundQueues.getNumberOfSlowConsumerDisconnections());
+    }
+
+    @Test
+    void shouldReleaseBacklogOfClosedSession() throws InterruptedException {
+        outboundQueues = new OutboundQueues(config(1024, 60000L, OverflowPolicy.DISCONNECT), new GameServerMetrics(new SimpleMeterRegistry()));
+        WebSocketSession session = stalledSession();
+        outboundQueues.register(session);
+
+        outboundQueues.send(session, GAME_UPDATED, new TextMessage("X1"));
+        assertTrue(firstSendStarted.await(1, TimeUnit.SECONDS));
+        outboundQueues.send(session, GAME_UPDATED, new TextMessage("O2"));
+        assertEquals(1, outboundQueues.getNumberOfBufferedMessages());
+
+        outboundQueues.remove(session);
+
+        assertEquals(0, outboundQueues.getNumberOfBufferedMessages());
+        assertTrue(outboundQueues.find(session).isEmpty());
+    }
+
+    @Test
+    void shouldDropMessagesToRemovedSession() {
+        outboundQueues = new OutboundQueues(config(1024, 60000L, OverflowPolicy.DISCONNECT), new GameServerMetrics(new SimpleMeterRegistry()));
+        WebSocketSession session = stalledSession();
+        outboundQueues.register(session);
+        outboundQueues.remove(session);
+
+        outboundQueues.send(session, GAME_UPDATED, new TextMessage("X1"));
+
+        assertTrue(outboundQueues.find(session).isEmpty());
+        assertEquals(0, outboundQueues.getNumberOfQueues());
+        assertEquals(1, firstSendStarted.getCount(), "nothing is written to the closed socket");
+        assertEquals(0, outboundQueues.getNumberOfSlowConsumerDisconnections());
+    }
+
+    private OutboundQueueConfig config(int bufferSizeLimit, long sendTimeLimit, OverflowPolicy overflowPolicy) {
+        OutboundQueueConfig config = new OutboundQueueConfig();
+        config.bufferSizeLimit = bufferSizeLimit;
+        config.sendTimeLimit = sendTimeLimit;
+        config.overflowPolicy = overflowPolicy;
+        return config;
+    }
+
+    // the first sent message never leaves the socket
+    private WebSocketSession stalledSession() {
+        return (WebSocketSession) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebSocketSession.class}, (proxy, method, arguments) -> switch (method.getName()) {
+            case "getId" -> "1";
+            case "isOpen" -> sessionClosed.getCount() > 0;
+            case "sendMessage" -> {
+                firstSendStarted.countDown();
+                stalledSocket.await();
+                yield null;
+            }
+            case "close" -> {
+                assertEquals(CloseStatus.SESSION_NOT_RELIABLE, arguments[0]);
+                sessionClosed.countDown();
+                yield null;
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package pl.lukasz94w.tictactoe;
+
+import org.junit.jupiter.api.Test;
+import pl.lukasz94w.exception.TictactoeException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KInARowTest {
+
+    @Test
+    void shouldDetectFiveInRowOnlyWhenLineIsComplete() {
+        Board board = TictactoeFactory.createBoard(BoardVariant.GOMOKU);
+
+        // X fills 14..10 in the first row right to left, the row wraps at 15 so 14 and 15 are not neighbours
+        play(board, "X14", "O100", "X13", "O101", "X12", "O102", "X11", "O103", "X15");
+        assertEquals(Tictactoe.Result.ONGOING, board.checkWhetherGameEnded());
+
+        play(board, "O200", "X10");
+        assertEquals(Tictactoe.Result.FIRST_PLAYER_WON, board.checkWhetherGameEnded());
+        assertEquals(6, board.getNumberOfWinningMovements());
+        assertNotNull(board.getGameEndedUTC());
+    }
+
+    @Test
+    void shouldDetectWinOnAntiDiagonalCompletedInTheMiddle() {
+        Board board = TictactoeFactory.createBoard(BoardVariant.GOMOKU);
+
+        // squares (2,12) (3,11) (4,10) (5,9) (6,8), the middle one is marked as the last
+        play(board, "X0", "O42", "X1", "O56", "X2", "O84", "X3", "O98", "X5");
+        assertEquals(Tictactoe.Result.ONGOING, board.checkWhetherGameEnded());
+
+        play(board, "O70");
+        assertEquals(Tictactoe.Result.SECOND_PLAYER_WON, board.checkWhetherGameEnded());
+    }
+
+    @Test
+    void shouldRejectInvalidMoves() {
+        Board board = TictactoeFactory.createBoard(BoardVariant.GOMOKU);
+        play(board, "X224");
+
+        assertThrows(TictactoeException.class, () -> board.updateState("224", "O"));
+        assertThrows(TictactoeException.class, () -> board.updateState("225", "O"));
+        assertThrows(TictactoeException.class, () -> board.updateState("1", "Z"));
+    }
+
+    private void play(Board board, String... moves) {
+        for (String move : moves) {
+            board.updateState(move.substring(1), move.substring(0, 1));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pl.lukasz94w.tictactoe;
+
+import org.junit.jupiter.api.Test;
+import pl.lukasz94w.exception.TictactoeException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TictactoeTest {
+
+    @Test
+    void shouldDetectWinOnDiagonalAndCountWinnerMovements() {
+        Tictactoe tictactoe = TictactoeFactory.createTictactoe();
+
+        play(tictactoe, "X4", "O0", "X2", "O1", "X6");
+
+        assertEquals(Tictactoe.Result.FIRST_PLAYER_WON, tictactoe.checkWhetherGameEnded());
+        assertEquals(3, tictactoe.getNumberOfWinningMovements());
+        assertNotNull(tictactoe.getGameEndedUTC());
+    }
+
+    @Test
+    void shouldDetectSecondPlayerWinInColumn() {
+        Tictactoe tictactoe = TictactoeFactory.createTictactoe();
+
+        play(tictactoe, "X0", "O2", "X1", "O5", "X3", "O8");
+
+        assertEquals(Tictactoe.Result.SECOND_PLAYER_WON, tictactoe.checkWhetherGameEnded());
+        assertEquals(3, tictactoe.getNumberOfWinningMovements());
+    }
+
+    @Test
+    void shouldDetectDrawAndOngoingGame() {
+        Tictactoe tictactoe = TictactoeFactory.createTictactoe();
+
+        play(tictactoe, "X0", "O1", "X2", "O4", "X3", "O5", "X7", "O6");
+        assertEquals(Tictactoe.Result.ONGOING, tictactoe.checkWhetherGameEnded());
+
+        play(tictactoe, "X8");
+        assertEquals(Tictactoe.Result.UNRESOLVED, tictactoe.checkWhetherGameEnded());
+    }
+
+    @Test
+    void shouldRejectInvalidMoves() {
+        Tictactoe tictactoe = TictactoeFactory.createTictactoe();
+        play(tictactoe, "X4");
+
+        assertThrows(TictactoeException.class, () -> tictactoe.updateState("4", "O"));
+        assertThrows(TictactoeException.class, () -> tictactoe.updateState("9", "O"));
+        assertThrows(TictactoeException.class, () -> tictactoe.updateState("1", "Z"));
+    }
+
+    private void play(Tictactoe tictactoe, String... moves) {
+        for (String move : moves) {
+            tictactoe.updateState(move.substring(1), move.substring(0, 1));
+        }
+    }
+}
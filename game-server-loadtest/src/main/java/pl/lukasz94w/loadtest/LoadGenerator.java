@@ -0,0 +1,65 @@
+package pl.lukasz94w.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.lukasz94w.codec.JsonMessageCodec;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Headless clients of game-server-core for measuring how many games a single node handles. Players are started during
+// the ramp up and play for the given duration, the statistics are reported periodically and in total at the end.
+// In the soak mode the server state is sampled during the run and checked for leftovers after the players are gone,
+// the process exits with 1 if a leak was detected (so it can fail the pipeline).
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private final LoadTestConfig config;
+
+    public LoadGenerator(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] arguments) throws InterruptedException {
+        LoadTestConfig config = LoadTestConfig.fromArguments(arguments);
+        boolean passed = new LoadGenerator(config).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    public boolean run() throws InterruptedException {
+        HttpClient httpClient = HttpClient.newHttpClient();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        JsonMessageCodec codec = new JsonMessageCodec();
+        LoadTestStatistics statistics = new LoadTestStatistics();
+        SoakMonitor soakMonitor = new SoakMonitor(config, httpClient, statistics);
+
+        logger.info("Starting {} players against {} ({} {} games) for {} ms after {} ms of ramp up{}", config.players, config.url,
+                config.mode, config.variant, config.duration, config.rampUp, config.soak ? ", soak mode" : "");
+        List<VirtualPlayer> players = new ArrayList<>(config.players);
+        for (int i = 0; i < config.players; i++) {
+            VirtualPlayer player = new VirtualPlayer(config.playerNamePrefix + i, config, httpClient, scheduler, codec, statistics);
+            players.add(player);
+            scheduler.schedule(player::start, config.rampUp * i / config.players, TimeUnit.MILLISECONDS);
+        }
+
+        scheduler.scheduleAtFixedRate(statistics::reportInterval, config.reportInterval, config.reportInterval, TimeUnit.MILLISECONDS);
+        if (config.soak) {
+            scheduler.scheduleAtFixedRate(soakMonitor::check, config.soakCheckInterval, config.soakCheckInterval, TimeUnit.MILLISECONDS);
+        }
+
+        Thread.sleep(config.rampUp + config.duration);
+
+        logger.info("Stopping the players");
+        players.forEach(VirtualPlayer::stop);
+        scheduler.shutdownNow(); // pending moves and reconnections of the stopped players
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        statistics.reportTotals(config.reportDirectory);
+
+        return !config.soak || soakMonitor.awaitDrain();
+    }
+}
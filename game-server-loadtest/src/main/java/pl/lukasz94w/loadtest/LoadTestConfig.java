@@ -0,0 +1,99 @@
+package pl.lukasz94w.loadtest;
+
+import java.net.URI;
+
+// Options of the run, given as --name=value arguments. Defaults fit a single game-server-core started locally on port
+// 8080 (see README).
+public class LoadTestConfig {
+
+    // plain WebSocket endpoint of game-server-core, connected directly (not through api-gateway-service)
+    public URI url = URI.create("ws://localhost:8080/websocket/raw");
+
+    // actuator endpoint of the same server, read by the soak mode
+    public URI metricsUrl = URI.create("http://localhost:8080/actuator/prometheus");
+
+    public int players = 1000;
+
+    // players are started evenly during this time, so the handshakes don't come all at once
+    public long rampUp = 10000;
+
+    public long duration = 60000;
+
+    public String variant = "tictactoe";
+
+    public String mode = "relayed";
+
+    public String playerNamePrefix = "loadtest-";
+
+    // the server closes the sessions without heartbeat for 65 seconds
+    public long heartbeatInterval = 30000;
+
+    public long minThinkTime = 200;
+
+    public long maxThinkTime = 1000;
+
+    // after every own move
+    public double chatProbability = 0.1;
+
+    public long pauseBetweenGames = 1000;
+
+    // used when the rejection doesn't come with its own retry after
+    public long reconnectBackoff = 2000;
+
+    public long reportInterval = 10000;
+
+    // directory of the latency histograms written at the end of the run (HdrHistogram percentile distribution)
+    public String reportDirectory = "loadtest-report";
+
+    public boolean soak = false;
+
+    public long soakCheckInterval = 60000;
+
+    // the server may count a few more games than the clients at the moment of the sample (i.e. held seats)
+    public int leakTolerance = 10;
+
+    // time given to the server to release everything after the players disconnected, has to be longer than its
+    // resume grace period
+    public long drainTimeout = 45000;
+
+    public static LoadTestConfig fromArguments(String[] arguments) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String argument : arguments) {
+            int separator = argument.indexOf('=');
+            if (!argument.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value argument, got: " + argument);
+            }
+
+            String name = argument.substring(2, separator);
+            String value = argument.substring(separator + 1);
+            switch (name) {
+                case "url" -> config.url = URI.create(value);
+                case "metricsUrl" -> config.metricsUrl = URI.create(value);
+                case "players" -> config.players = Integer.parseInt(value);
+                case "rampUp" -> config.rampUp = Long.parseLong(value);
+                case "duration" -> config.duration = Long.parseLong(value);
+                case "variant" -> config.variant = value;
+                case "mode" -> config.mode = value;
+                case "playerNamePrefix" -> config.playerNamePrefix = value;
+                case "heartbeatInterval" -> config.heartbeatInterval = Long.parseLong(value);
+                case "minThinkTime" -> config.minThinkTime = Long.parseLong(value);
+                case "maxThinkTime" -> config.maxThinkTime = Long.parseLong(value);
+                case "chatProbability" -> config.chatProbability = Double.parseDouble(value);
+                case "pauseBetweenGames" -> config.pauseBetweenGames = Long.parseLong(value);
+                case "reconnectBackoff" -> config.reconnectBackoff = Long.parseLong(value);
+                case "reportInterval" -> config.reportInterval = Long.parseLong(value);
+                case "reportDirectory" -> config.reportDirectory = value;
+                case "soak" -> config.soak = Boolean.parseBoolean(value);
+                case "soakCheckInterval" -> config.soakCheckInterval = Long.parseLong(value);
+                case "leakTolerance" -> config.leakTolerance = Integer.parseInt(value);
+                case "drainTimeout" -> config.drainTimeout = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+
+        if (config.minThinkTime > config.maxThinkTime) {
+            throw new IllegalArgumentException("minThinkTime can't be greater than maxThinkTime");
+        }
+        return config;
+    }
+}
@@ -0,0 +1,194 @@
+package pl.lukasz94w.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Everything measured by the virtual players. Latencies are recorded in microseconds into the HdrHistogram recorders
+// (wait-free for the recording threads), every report takes the interval histograms out of them and adds them to the
+// totals of the whole run.
+public class LoadTestStatistics {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toMicros(1);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Logger logger = LoggerFactory.getLogger(LoadTestStatistics.class);
+
+    // from sending the move to its confirmation: opponent's receipt (relayed) or the applied move (authoritative)
+    private final Recorder moveLatency = new Recorder(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+
+    private final Recorder heartbeatLatency = new Recorder(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+
+    // from opening the session to the start of the game
+    private final Recorder pairingTime = new Recorder(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+
+    private final Histogram totalMoveLatency = new Histogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+
+    private final Histogram totalHeartbeatLatency = new Histogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+
+    private final Histogram totalPairingTime = new Histogram(HIGHEST_TRACKABLE_LATENCY, SIGNIFICANT_DIGITS);
+
+    private final LongAdder connections = new LongAdder();
+
+    private final LongAdder gamesStarted = new LongAdder();
+
+    private final LongAdder gamesFinished = new LongAdder();
+
+    private final LongAdder chatMessagesSent = new LongAdder();
+
+    private final LongAdder chatMessagesReceived = new LongAdder();
+
+    private final LongAdder opponentDisconnections = new LongAdder();
+
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    // players between the start and the end of their game, so twice the games the server should be holding
+    private final AtomicInteger playersInGame = new AtomicInteger();
+
+    private final long startTime = System.nanoTime();
+
+    private long lastReportTime = startTime;
+
+    private long lastReportedMoves;
+
+    public void recordConnection() {
+        connections.increment();
+    }
+
+    public void recordPairingTime(long nanos) {
+        pairingTime.recordValue(toMicros(nanos));
+    }
+
+    public void recordGameStarted() {
+        gamesStarted.increment();
+        playersInGame.incrementAndGet();
+    }
+
+    public void recordGameLeft(boolean finished) {
+        playersInGame.decrementAndGet();
+        if (finished) {
+            gamesFinished.increment(); // by both players
+        }
+    }
+
+    public void recordMoveLatency(long nanos) {
+        moveLatency.recordValue(toMicros(nanos));
+    }
+
+    public void recordHeartbeatLatency(long nanos) {
+        heartbeatLatency.recordValue(toMicros(nanos));
+    }
+
+    public void recordChatMessageSent() {
+        chatMessagesSent.increment();
+    }
+
+    public void recordChatMessageReceived() {
+        chatMessagesReceived.increment();
+    }
+
+    public void recordOpponentDisconnection() {
+        opponentDisconnections.increment();
+    }
+
+    public void recordRejection(String reason) {
+        rejections.computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    public void recordError(String kind) {
+        errors.computeIfAbsent(kind, key -> new LongAdder()).increment();
+    }
+
+    public int getPlayersInGame() {
+        return playersInGame.get();
+    }
+
+    public long getNumberOfErrors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public synchronized void reportInterval() {
+        long now = System.nanoTime();
+        Histogram intervalMoveLatency = moveLatency.getIntervalHistogram();
+        Histogram intervalHeartbeatLatency = heartbeatLatency.getIntervalHistogram();
+        Histogram intervalPairingTime = pairingTime.getIntervalHistogram();
+        totalMoveLatency.add(intervalMoveLatency);
+        totalHeartbeatLatency.add(intervalHeartbeatLatency);
+        totalPairingTime.add(intervalPairingTime);
+
+        long moves = totalMoveLatency.getTotalCount();
+        double seconds = (now - lastReportTime) / 1e9;
+        logger.info("[{}s] in game: {}, moves/s: {}, move {}, heartbeat {}, pairing {}, errors: {}",
+                TimeUnit.NANOSECONDS.toSeconds(now - startTime), playersInGame.get(), String.format("%.1f", (moves - lastReportedMoves) / seconds),
+                describe(intervalMoveLatency), describe(intervalHeartbeatLatency), describe(intervalPairingTime), getNumberOfErrors());
+        lastReportTime = now;
+        lastReportedMoves = moves;
+    }
+
+    public synchronized void reportTotals(String reportDirectory) {
+        reportInterval();
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        logger.info("Connections: {}, games started: {}, games finished: {}, opponent disconnections: {}",
+                connections.sum(), gamesStarted.sum() / 2, gamesFinished.sum() / 2, opponentDisconnections.sum());
+        logger.info("Moves: {} ({} per second), chat messages sent: {}, received: {}",
+                totalMoveLatency.getTotalCount(), String.format("%.1f", totalMoveLatency.getTotalCount() / seconds), chatMessagesSent.sum(), chatMessagesReceived.sum());
+        logger.info("Move latency {}", describe(totalMoveLatency));
+        logger.info("Heartbeat latency {}", describe(totalHeartbeatLatency));
+        logger.info("Pairing time {}", describe(totalPairingTime));
+        logger.info("Rejections: {}", sorted(rejections));
+        logger.info("Errors: {}", sorted(errors));
+
+        try {
+            Path directory = Files.createDirectories(Path.of(reportDirectory));
+            writeHistogram(directory.resolve("move-latency.hgrm"), totalMoveLatency);
+            writeHistogram(directory.resolve("heartbeat-latency.hgrm"), totalHeartbeatLatency);
+            writeHistogram(directory.resolve("pairing-time.hgrm"), totalPairingTime);
+            logger.info("Latency histograms written to: {}", directory.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("Couldn't write the latency histograms: {}", e.getMessage());
+        }
+    }
+
+    // in milliseconds, as they are compared with the server side timers
+    private static String describe(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return "[no samples]";
+        }
+
+        return String.format("[count: %d, p50: %.2f ms, p99: %.2f ms, p99.9: %.2f ms, max: %.2f ms]", histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+    }
+
+    private static Map<String, Long> sorted(Map<String, LongAdder> counters) {
+        Map<String, Long> sortedCounters = new TreeMap<>();
+        counters.forEach((key, counter) -> sortedCounters.put(key, counter.sum()));
+        return sortedCounters;
+    }
+
+    // the format accepted by the HdrHistogram plotter, values scaled to milliseconds
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream output = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(output, 1000.0);
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_LATENCY);
+    }
+}
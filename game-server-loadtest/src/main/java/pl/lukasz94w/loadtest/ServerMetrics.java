@@ -0,0 +1,70 @@
+package pl.lukasz94w.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Sample of the server state read from its Prometheus endpoint (see GameServerGauges), only the needed series are kept.
+public class ServerMetrics {
+
+    public static final String ACTIVE_GAMES = "game_server_games_active";
+
+    public static final String WAITING_PLAYERS = "game_server_lobby_waiting";
+
+    public static final String OUTBOUND_QUEUES = "game_server_outbound_queues";
+
+    public static final String OUTBOUND_BACKLOG = "game_server_outbound_backlog";
+
+    public static final String EVENT_LOOP_PENDING_TASKS = "game_server_eventloop_pending";
+
+    public static final String JOURNAL_PENDING_EVENTS = "game_server_journal_pending";
+
+    public static final String USED_MEMORY = "jvm_memory_used_bytes";
+
+    // everything above has to drop to zero once all the players are gone
+    public static final List<String> RELEASED_AFTER_DISCONNECTION = List.of(ACTIVE_GAMES, WAITING_PLAYERS, OUTBOUND_QUEUES, OUTBOUND_BACKLOG, EVENT_LOOP_PENDING_TASKS, JOURNAL_PENDING_EVENTS);
+
+    private final List<String> series;
+
+    private ServerMetrics(List<String> series) {
+        this.series = series;
+    }
+
+    public static ServerMetrics scrape(HttpClient httpClient, URI metricsUrl) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(metricsUrl).timeout(Duration.ofSeconds(10)).GET().build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Metrics endpoint responded with status: " + response.statusCode());
+        }
+
+        List<String> series = new ArrayList<>();
+        response.body().lines()
+                .filter(line -> !line.startsWith("#") && !line.isBlank())
+                .filter(line -> line.startsWith("game_server_") || line.startsWith(USED_MEMORY))
+                .forEach(series::add);
+        return new ServerMetrics(series);
+    }
+
+    // value of the series summed over all its tags, optionally only the ones having all the given "tag=value" pairs
+    public double get(String name, String... requiredTags) {
+        double sum = 0;
+        for (String line : series) {
+            int nameEnd = line.indexOf('{') >= 0 ? line.indexOf('{') : line.indexOf(' ');
+            if (!line.substring(0, nameEnd).equals(name) || !Arrays.stream(requiredTags).allMatch(tag -> line.contains(tag.replace("=", "=\"") + "\""))) {
+                continue;
+            }
+            sum += Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+        }
+        return sum;
+    }
+
+    public long getUsedHeap() {
+        return (long) get(USED_MEMORY, "area=heap");
+    }
+}
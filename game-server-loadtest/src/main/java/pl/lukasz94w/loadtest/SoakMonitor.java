@@ -0,0 +1,101 @@
+package pl.lukasz94w.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Leak detection of the long runs. While the players are playing, the games held by the server are compared with the
+// ones the players are in: the difference growing above the tolerance in consecutive samples means the entries of
+// the games are not removed. After all the players disconnected every game, lobby and queue gauge (the outbound
+// queues of the sessions included) has to go back to zero before the drain timeout. Heap used by the server is logged
+// with every sample to show its trend.
+public class SoakMonitor {
+
+    private static final int SUSPICIOUS_SAMPLES = 3;
+
+    private final Logger logger = LoggerFactory.getLogger(SoakMonitor.class);
+
+    private final LoadTestConfig config;
+
+    private final HttpClient httpClient;
+
+    private final LoadTestStatistics statistics;
+
+    private long firstUsedHeap = -1;
+
+    private int suspiciousSamplesInRow;
+
+    private boolean leakSuspected;
+
+    public SoakMonitor(LoadTestConfig config, HttpClient httpClient, LoadTestStatistics statistics) {
+        this.config = config;
+        this.httpClient = httpClient;
+        this.statistics = statistics;
+    }
+
+    public synchronized void check() {
+        ServerMetrics serverMetrics;
+        try {
+            serverMetrics = ServerMetrics.scrape(httpClient, config.metricsUrl);
+        } catch (Exception e) {
+            logger.warn("Couldn't read the server metrics: {}", e.getMessage());
+            return;
+        }
+
+        long serverGames = (long) serverMetrics.get(ServerMetrics.ACTIVE_GAMES);
+        long clientGames = (statistics.getPlayersInGame() + 1) / 2;
+        long usedHeap = serverMetrics.getUsedHeap();
+        if (firstUsedHeap < 0) {
+            firstUsedHeap = usedHeap;
+        }
+        logger.info("Server games: {}, client games: {}, lobby: {}, sessions: {}, outbound backlog: {}, heap used: {} MB ({} MB since the first sample)",
+                serverGames, clientGames, (long) serverMetrics.get(ServerMetrics.WAITING_PLAYERS), (long) serverMetrics.get(ServerMetrics.OUTBOUND_QUEUES),
+                (long) serverMetrics.get(ServerMetrics.OUTBOUND_BACKLOG),
+                usedHeap >> 20, (usedHeap - firstUsedHeap) >> 20);
+
+        if (serverGames - clientGames > config.leakTolerance) {
+            suspiciousSamplesInRow++;
+            if (suspiciousSamplesInRow >= SUSPICIOUS_SAMPLES && !leakSuspected) {
+                leakSuspected = true;
+                logger.warn("Server holds {} games more than the players are in for {} samples in a row, games are probably leaking", serverGames - clientGames, suspiciousSamplesInRow);
+            }
+        } else {
+            suspiciousSamplesInRow = 0;
+        }
+    }
+
+    // to be called after all the players stopped
+    public boolean awaitDrain() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + config.drainTimeout;
+        Map<String, Long> leftovers = new TreeMap<>();
+        while (System.currentTimeMillis() < deadline) {
+            leftovers.clear();
+            try {
+                ServerMetrics serverMetrics = ServerMetrics.scrape(httpClient, config.metricsUrl);
+                for (String name : ServerMetrics.RELEASED_AFTER_DISCONNECTION) {
+                    long value = (long) serverMetrics.get(name);
+                    if (value != 0) {
+                        leftovers.put(name, value);
+                    }
+                }
+                if (leftovers.isEmpty()) {
+                    logger.info("Server released all the games and sessions, heap used: {} MB", serverMetrics.getUsedHeap() >> 20);
+                    return !isLeakSuspected();
+                }
+            } catch (Exception e) {
+                logger.warn("Couldn't read the server metrics: {}", e.getMessage());
+            }
+            Thread.sleep(1000);
+        }
+
+        logger.error("Leak detected, left on the server {} ms after all the players disconnected: {}", config.drainTimeout, leftovers);
+        return false;
+    }
+
+    public synchronized boolean isLeakSuspected() {
+        return leakSuspected;
+    }
+}
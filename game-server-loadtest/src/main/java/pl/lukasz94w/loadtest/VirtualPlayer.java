@@ -0,0 +1,417 @@
+package pl.lukasz94w.loadtest;
+
+import pl.lukasz94w.codec.IncomingMessage;
+import pl.lukasz94w.codec.JsonMessageCodec;
+import pl.lukasz94w.tictactoe.BoardVariant;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static pl.lukasz94w.dto.websocket.common.JsonKey.RETRY_AFTER;
+import static pl.lukasz94w.dto.websocket.incoming.ClientMessageTypeValue.*;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageDataValue.FIRST_PLAYER;
+import static pl.lukasz94w.dto.websocket.outgoing.ServerMessageTypeValue.*;
+
+// Simulated client playing games in a loop: connects with the stubbed "username" header (normally added by
+// api-gateway-service), waits in the lobby, plays the game with random moves, chat and heartbeats, closes the session
+// once the game ended and connects again after a pause. Frames arrive on the threads of the http client and the timers
+// fire on the scheduler, so the state is guarded by the lock of the player.
+public class VirtualPlayer implements WebSocket.Listener {
+
+    private static final List<String> CHAT_MESSAGES = List.of("gl hf", "nice move", "hmm...", "are you still there?", "gg");
+
+    private enum State {
+        DISCONNECTED, WAITING, PLAYING, FINISHED, STOPPED
+    }
+
+    private final String name;
+
+    private final LoadTestConfig config;
+
+    private final HttpClient httpClient;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final JsonMessageCodec codec;
+
+    private final LoadTestStatistics statistics;
+
+    private final URI uri;
+
+    private final int numberOfSquares;
+
+    private final boolean authoritative;
+
+    private final StringBuilder incomingFrame = new StringBuilder();
+
+    private State state = State.DISCONNECTED;
+
+    private WebSocket webSocket;
+
+    // sends of the JDK client can't overlap, every one is chained after the previous
+    private CompletableFuture<WebSocket> lastSend = CompletableFuture.completedFuture(null);
+
+    private ScheduledFuture<?> heartbeatTask;
+
+    private ScheduledFuture<?> moveTask;
+
+    private boolean reconnectScheduled;
+
+    private long connectedAt;
+
+    private long moveSentAt;
+
+    private long heartbeatSentAt;
+
+    private String symbol;
+
+    private long lastMoveSequenceNumber;
+
+    private final List<Integer> freeSquares = new ArrayList<>();
+
+    public VirtualPlayer(String name, LoadTestConfig config, HttpClient httpClient, ScheduledExecutorService scheduler, JsonMessageCodec codec, LoadTestStatistics statistics) {
+        this.name = name;
+        this.config = config;
+        this.httpClient = httpClient;
+        this.scheduler = scheduler;
+        this.codec = codec;
+        this.statistics = statistics;
+        BoardVariant boardVariant = BoardVariant.fromName(config.variant).orElseThrow(() -> new IllegalArgumentException("Unknown board variant: " + config.variant));
+        numberOfSquares = boardVariant.getRows() * boardVariant.getColumns();
+        authoritative = config.mode.equalsIgnoreCase("authoritative");
+        uri = URI.create(config.url + "?variant=" + config.variant + "&mode=" + config.mode);
+    }
+
+    public synchronized void start() {
+        if (state != State.DISCONNECTED) {
+            return;
+        }
+
+        state = State.WAITING;
+        incomingFrame.setLength(0);
+        lastSend = CompletableFuture.completedFuture(null);
+        connectedAt = System.nanoTime();
+        httpClient.newWebSocketBuilder()
+                .header("username", name)
+                .subprotocols(JsonMessageCodec.SUBPROTOCOL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .buildAsync(uri, this)
+                .whenComplete((openedWebSocket, exception) -> {
+                    if (exception != null) {
+                        handleConnectFailure();
+                    }
+                });
+    }
+
+    public synchronized void stop() {
+        leaveGame(false);
+        state = State.STOPPED;
+        close();
+    }
+
+    // callbacks of the sessions closed by the player itself come after it has moved on, they are only acknowledged
+    @Override
+    public synchronized void onOpen(WebSocket webSocket) {
+        if (state == State.STOPPED) {
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "");
+            return;
+        }
+
+        this.webSocket = webSocket;
+        statistics.recordConnection();
+        long firstHeartbeatDelay = ThreadLocalRandom.current().nextLong(config.heartbeatInterval / 2, config.heartbeatInterval + 1);
+        heartbeatTask = scheduler.scheduleAtFixedRate(this::sendHeartbeat, firstHeartbeatDelay, config.heartbeatInterval, TimeUnit.MILLISECONDS);
+        webSocket.request(1);
+    }
+
+    @Override
+    public synchronized CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        if (webSocket != this.webSocket) {
+            webSocket.request(1);
+            return null;
+        }
+
+        incomingFrame.append(data);
+        if (last) {
+            String frame = incomingFrame.toString();
+            incomingFrame.setLength(0);
+            try {
+                handleMessage(frame);
+            } catch (RuntimeException e) {
+                statistics.recordError("protocol");
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public synchronized CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        if (webSocket != this.webSocket) {
+            return null;
+        }
+
+        if (state == State.PLAYING) {
+            statistics.recordError("closedDuringGame");
+        }
+        leaveGame(false);
+        close();
+        reconnectLater(config.reconnectBackoff);
+        return null;
+    }
+
+    @Override
+    public synchronized void onError(WebSocket webSocket, Throwable error) {
+        if (webSocket != this.webSocket) {
+            return;
+        }
+
+        statistics.recordError("connection");
+        leaveGame(false);
+        this.webSocket = null;
+        cancelTasks();
+        if (state != State.STOPPED) {
+            state = State.DISCONNECTED;
+        }
+        reconnectLater(config.reconnectBackoff);
+    }
+
+    private synchronized void handleConnectFailure() {
+        statistics.recordError("connect");
+        reconnectLater(config.reconnectBackoff);
+    }
+
+    private void handleMessage(String frame) {
+        IncomingMessage message = codec.decode(frame);
+        switch (message.getType()) {
+            case GAME_STARTED -> startGame(message.getData());
+            case GAME_UPDATED -> confirmOpponentMove(message.getData());
+            case OPPONENT_RECEIVED_GAME_UPDATE_CONFIRMATION -> recordMoveConfirmation();
+            case MOVE_APPLIED -> handleAppliedMove(message.getData());
+            case MOVE_REJECTED -> {
+                statistics.recordError("moveRejected");
+                scheduleMove();
+            }
+            case HEARTBEAT_RECEIVED_CONFIRMATION -> recordHeartbeatConfirmation();
+            case OPPONENT_MESSAGE -> statistics.recordChatMessageReceived();
+            case GAME_ENDED -> finishGame();
+            case PAIRED_SESSION_DISCONNECTED -> handleOpponentDisconnection();
+            case SESSION_REJECTED -> handleRejection(message.getData(), frame);
+            default -> statistics.recordError("unexpected:" + message.getType());
+        }
+    }
+
+    private void startGame(String data) {
+        if (state != State.WAITING) {
+            statistics.recordError("unexpected:" + GAME_STARTED);
+            return;
+        }
+
+        state = State.PLAYING;
+        statistics.recordPairingTime(System.nanoTime() - connectedAt);
+        statistics.recordGameStarted();
+        symbol = data.equals(FIRST_PLAYER) ? "X" : "O";
+        lastMoveSequenceNumber = 0;
+        freeSquares.clear();
+        for (int square = 0; square < numberOfSquares; square++) {
+            freeSquares.add(square);
+        }
+
+        if (symbol.equals("X")) {
+            scheduleMove();
+        }
+    }
+
+    private void scheduleMove() {
+        if (state != State.PLAYING) {
+            return;
+        }
+
+        long thinkTime = ThreadLocalRandom.current().nextLong(config.minThinkTime, config.maxThinkTime + 1);
+        moveTask = scheduler.schedule(this::move, thinkTime, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void move() {
+        if (state != State.PLAYING || freeSquares.isEmpty()) {
+            return;
+        }
+
+        int square = freeSquares.get(ThreadLocalRandom.current().nextInt(freeSquares.size()));
+        moveSentAt = System.nanoTime();
+        if (authoritative) {
+            send(PLAYER_MOVE, (lastMoveSequenceNumber + 1) + ":" + square); // square is freed by the applied move
+        } else {
+            freeSquares.remove(Integer.valueOf(square));
+            send(GAME_UPDATE, symbol + square);
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < config.chatProbability) {
+            send(PLAYER_MESSAGE, CHAT_MESSAGES.get(ThreadLocalRandom.current().nextInt(CHAT_MESSAGES.size())));
+            statistics.recordChatMessageSent();
+        }
+    }
+
+    // relayed game: the move of the opponent ("O4") is applied by the server only after it's confirmed
+    private void confirmOpponentMove(String move) {
+        if (state != State.PLAYING) {
+            return;
+        }
+
+        freeSquares.remove(Integer.valueOf(move.substring(1)));
+        send(PLAYER_RECEIVED_GAME_UPDATE_CONFIRMATION, move);
+        scheduleMove();
+    }
+
+    private void recordMoveConfirmation() {
+        if (state == State.PLAYING) {
+            statistics.recordMoveLatency(System.nanoTime() - moveSentAt);
+        }
+    }
+
+    // authoritative game: both players get every applied move ("3:X4")
+    private void handleAppliedMove(String move) {
+        if (state != State.PLAYING) {
+            return;
+        }
+
+        int separator = move.indexOf(':');
+        lastMoveSequenceNumber = Long.parseLong(move, 0, separator, 10);
+        String movingSymbol = move.substring(separator + 1, separator + 2);
+        freeSquares.remove(Integer.valueOf(move.substring(separator + 2)));
+        if (movingSymbol.equals(symbol)) {
+            statistics.recordMoveLatency(System.nanoTime() - moveSentAt);
+        } else {
+            scheduleMove();
+        }
+    }
+
+    private synchronized void sendHeartbeat() {
+        if (state == State.PLAYING) {
+            heartbeatSentAt = System.nanoTime(); // confirmed only in the game
+        }
+        send(HEARTBEAT, "");
+    }
+
+    private void recordHeartbeatConfirmation() {
+        if (heartbeatSentAt > 0) {
+            statistics.recordHeartbeatLatency(System.nanoTime() - heartbeatSentAt);
+            heartbeatSentAt = 0;
+        }
+    }
+
+    private void finishGame() {
+        if (state != State.PLAYING) {
+            return;
+        }
+
+        leaveGame(true);
+        close();
+        reconnectLater(config.pauseBetweenGames);
+    }
+
+    // after the game ended it's just the opponent closing its session first, so only counted during the game
+    private void handleOpponentDisconnection() {
+        if (state != State.PLAYING) {
+            return;
+        }
+
+        statistics.recordOpponentDisconnection();
+        leaveGame(false);
+        close();
+        reconnectLater(config.pauseBetweenGames);
+    }
+
+    private void handleRejection(String reason, String frame) {
+        statistics.recordRejection(reason);
+        state = State.FINISHED;
+        close();
+        reconnectLater(readRetryAfter(frame).orElse(config.reconnectBackoff));
+    }
+
+    // rejections caused by the load come with the retry after (in seconds) next to the data
+    private static Optional<Long> readRetryAfter(String frame) {
+        String key = "\"" + RETRY_AFTER + "\":";
+        int start = frame.indexOf(key);
+        if (start < 0) {
+            return Optional.empty();
+        }
+
+        int position = start + key.length();
+        int end = position;
+        while (end < frame.length() && Character.isDigit(frame.charAt(end))) {
+            end++;
+        }
+        return end == position ? Optional.empty() : Optional.of(TimeUnit.SECONDS.toMillis(Long.parseLong(frame, position, end, 10)));
+    }
+
+    private void leaveGame(boolean finished) {
+        if (state == State.PLAYING) {
+            statistics.recordGameLeft(finished);
+            state = State.FINISHED;
+        }
+    }
+
+    private void send(String messageType, String messageData) {
+        WebSocket target = webSocket;
+        if (target == null || target.isOutputClosed()) {
+            return;
+        }
+
+        String frame = codec.encode(messageType, messageData).getPayload();
+        lastSend = lastSend
+                .thenCompose(previous -> target.sendText(frame, true))
+                .exceptionally(exception -> {
+                    statistics.recordError("send");
+                    return null;
+                });
+    }
+
+    private void close() {
+        cancelTasks();
+        WebSocket closedWebSocket = webSocket;
+        webSocket = null;
+        if (closedWebSocket != null && !closedWebSocket.isOutputClosed()) {
+            lastSend.thenCompose(previous -> closedWebSocket.sendClose(WebSocket.NORMAL_CLOSURE, ""));
+        }
+    }
+
+    private void cancelTasks() {
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+            heartbeatTask = null;
+        }
+        if (moveTask != null) {
+            moveTask.cancel(false);
+            moveTask = null;
+        }
+        heartbeatSentAt = 0;
+    }
+
+    private void reconnectLater(long delay) {
+        if (state == State.STOPPED || reconnectScheduled) {
+            return;
+        }
+
+        reconnectScheduled = true;
+        scheduler.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void reconnect() {
+        reconnectScheduled = false;
+        if (state != State.STOPPED) {
+            state = State.DISCONNECTED;
+            start();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package pl.lukasz94w.cache;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import pl.lukasz94w.entity.Player;
+
+// Entity listener of Player (created by Spring, as Hibernate uses its bean container), evicts the modified players
+// from the cache. New players don't need it, names which are not found aren't cached.
+@Component
+public class PlayerCacheInvalidator {
+
+    private final PlayerIdCache playerIdCache;
+
+    public PlayerCacheInvalidator(PlayerIdCache playerIdCache) {
+        this.playerIdCache = playerIdCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Player player) {
+        playerIdCache.invalidate(player.getId());
+    }
+}
@@ -0,0 +1,107 @@
+package pl.lukasz94w.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import pl.lukasz94w.configuration.PlayerCacheConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded name -> id map of the players, which are almost never modified. Entries expire after the time to live, so
+// the players changed outside of this service are picked up eventually, the changes made by it evict them at once (see
+// PlayerCacheInvalidator). Above the max size the least recently used entry is evicted. Every read modifies the access
+// order of the map, so all the operations take the lock (they're short, the queries they save are not).
+@Component
+public class PlayerIdCache {
+
+    private static final String CACHE_NAME = "playerIds";
+
+    private final int maxSize;
+
+    private final long timeToLiveNanos;
+
+    private final Map<String, CachedId> cachedIds;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private record CachedId(long playerId, long expiresAt) {
+    }
+
+    public PlayerIdCache(PlayerCacheConfig config, MeterRegistry meterRegistry) {
+        maxSize = config.maxSize;
+        timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(config.timeToLive);
+        cachedIds = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedId> eldest) {
+                boolean full = size() > maxSize;
+                if (full) {
+                    evictions.increment();
+                }
+                return full;
+            }
+        };
+
+        // names follow the Micrometer cache meters, the same as of the caches bound by Spring
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", CACHE_NAME)
+                .tag("result", "hit")
+                .description("Names resolved without the query")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", CACHE_NAME)
+                .tag("result", "miss")
+                .description("Names not cached (or expired), resolved by the query")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tag("cache", CACHE_NAME)
+                .description("Entries evicted because the cache was full")
+                .register(meterRegistry);
+
+        Gauge.builder("cache.size", this, PlayerIdCache::size)
+                .tag("cache", CACHE_NAME)
+                .description("Cached player names")
+                .register(meterRegistry);
+    }
+
+    public synchronized Optional<Long> get(String name) {
+        CachedId cachedId = cachedIds.get(name);
+        if (cachedId == null || cachedId.expiresAt() - System.nanoTime() < 0) {
+            if (cachedId != null) {
+                cachedIds.remove(name);
+            }
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(cachedId.playerId());
+    }
+
+    public synchronized void put(String name, long playerId) {
+        cachedIds.put(name, new CachedId(playerId, System.nanoTime() + timeToLiveNanos));
+    }
+
+    // by id, as the name of the player could have just been changed
+    public synchronized void invalidate(long playerId) {
+        cachedIds.values().removeIf(cachedId -> cachedId.playerId() == playerId);
+    }
+
+    public synchronized int size() {
+        return cachedIds.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
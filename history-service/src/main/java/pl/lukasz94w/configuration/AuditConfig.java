@@ -0,0 +1,28 @@
+package pl.lukasz94w.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "pl.lukasz94w.audit")
+@Getter
+@Setter
+public class AuditConfig {
+
+    // when disabled the requests aren't wrapped (nor their bodies copied) at all
+    public Boolean enabled;
+
+    // audit records, one JSON object per line
+    public String file;
+
+    // records waiting for the writer, above it the new ones are dropped (and counted)
+    public Integer capacity;
+
+    // fraction (0..1) of the audited requests per servlet path, the paths missing here are not audited
+    public Map<String, Double> samplingRates = new HashMap<>();
+}
@@ -0,0 +1,19 @@
+package pl.lukasz94w.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "pl.lukasz94w.player-cache")
+@Getter
+@Setter
+public class PlayerCacheConfig {
+
+    // number of the cached names, the least recently used one is evicted above it
+    public Integer maxSize;
+
+    // time (in ms) after which the cached id is read from the database again (players modified outside of the service)
+    public Long timeToLive;
+}
@@ -1,33 +1,89 @@
 package pl.lukasz94w.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.lukasz94w.request.FinishedGameData;
 import pl.lukasz94w.response.GameDto;
+import pl.lukasz94w.response.LeaderboardDto;
+import pl.lukasz94w.response.MoveLogReader;
+import pl.lukasz94w.response.PlayerStatsDto;
 import pl.lukasz94w.service.GameService;
+import pl.lukasz94w.service.LeaderboardService;
+import pl.lukasz94w.service.PlayerStatsService;
 
-import javax.validation.Valid;
-import java.util.Collection;
+import java.time.ZonedDateTime;
+import java.util.List;
 
 @RestController
+@Validated
 @RequestMapping("api/v1/history")
 @AllArgsConstructor
 public class HistoryController {
 
     private final GameService gameService;
 
+    private final PlayerStatsService playerStatsService;
+
+    private final LeaderboardService leaderboardService;
+
+    private final ObjectMapper objectMapper;
+
     @PostMapping("/save")
     public ResponseEntity<Void> save(@Valid @RequestBody FinishedGameData data) {
         gameService.save(data);
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    @PostMapping("/saveBatch")
+    public ResponseEntity<Void> saveBatch(@RequestBody List<@Valid FinishedGameData> data) {
+        gameService.saveAll(data);
+        return new ResponseEntity<>(HttpStatus.CREATED);
+    }
+
+    // newest games first, the next page is requested with gameEnded and id of the last game of the previous one
     @GetMapping("/findGamesForUser")
-    public ResponseEntity<Collection<GameDto>> findGamesForUser(@RequestHeader HttpHeaders requestHeaders) {
+    public ResponseEntity<List<GameDto>> findGamesForUser(@RequestHeader HttpHeaders requestHeaders,
+                                                          @RequestParam(defaultValue = "20") int pageSize,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime endedBefore,
+                                                          @RequestParam(required = false) Long beforeId) {
+        String userName = requestHeaders.getFirst("userName"); // coming from api-gateway-service
+        return new ResponseEntity<>(gameService.findGamesForUser(userName, endedBefore, beforeId, pageSize), HttpStatus.OK);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<PlayerStatsDto> findStats(@RequestHeader HttpHeaders requestHeaders) {
+        String userName = requestHeaders.getFirst("userName"); // coming from api-gateway-service
+        return new ResponseEntity<>(playerStatsService.findStats(userName), HttpStatus.OK);
+    }
+
+    // best rated players and the rank of the requesting one
+    @GetMapping("/leaderboard")
+    public ResponseEntity<LeaderboardDto> findLeaderboard(@RequestHeader HttpHeaders requestHeaders, @RequestParam(defaultValue = "10") int limit) {
         String userName = requestHeaders.getFirst("userName"); // coming from api-gateway-service
-        return new ResponseEntity<>(gameService.findGamesForUser(userName), HttpStatus.OK);
+        return new ResponseEntity<>(leaderboardService.findLeaderboard(userName, limit), HttpStatus.OK);
+    }
+
+    // moves are decoded while being written, one JSON object per line
+    @GetMapping("/games/{gameId}/moves")
+    public ResponseEntity<StreamingResponseBody> streamMoves(@PathVariable Long gameId, @RequestHeader HttpHeaders requestHeaders) {
+        String userName = requestHeaders.getFirst("userName"); // coming from api-gateway-service
+        MoveLogReader moveLogReader = gameService.readMoves(gameId, userName);
+
+        StreamingResponseBody moves = outputStream -> {
+            while (moveLogReader.hasNext()) {
+                outputStream.write(objectMapper.writeValueAsBytes(moveLogReader.next()));
+                outputStream.write('\n');
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(moves);
     }
 }
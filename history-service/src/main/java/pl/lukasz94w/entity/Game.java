@@ -9,14 +9,27 @@ import lombok.RequiredArgsConstructor;
 
 import java.time.ZonedDateTime;
 
+// indexes serve the pages of the history of the player (see GameRepository), one per the column of the player
 @Entity
+@Table(indexes = {
+        @Index(name = "game_first_player_ended_idx", columnList = "firstPlayerId, gameEndedUTC, id"),
+        @Index(name = "game_second_player_ended_idx", columnList = "secondPlayerId, gameEndedUTC, id")
+})
 @Getter
 @NoArgsConstructor(force = true)
 @RequiredArgsConstructor
 public class Game {
 
+    // 225 moves of the 15x15 gomoku board, each one up to 5 bytes
+    public static final int MAX_MOVE_LOG_LENGTH = 1125;
+
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Ids are taken from the sequence in blocks (pooled optimizer), so the inserts don't have to be executed one by one
+    // to get generated keys and can be batched. Sequence is moved past the ids of the older identity rows in data.sql.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_sequence")
+    @SequenceGenerator(name = "game_sequence", sequenceName = "game_sequence", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
@@ -44,4 +57,9 @@ public class Game {
 
     @NonNull
     private final Integer numberOfWinningMovements;
+
+    // packed moves (see MoveLogReader), the replay selects only this column
+    @Column(length = MAX_MOVE_LOG_LENGTH)
+    @Nullable
+    private final byte[] moveLog;
 }
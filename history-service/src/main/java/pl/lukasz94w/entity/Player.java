@@ -1,13 +1,12 @@
 package pl.lukasz94w.entity;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import pl.lukasz94w.cache.PlayerCacheInvalidator;
 
 @Entity
+@EntityListeners(PlayerCacheInvalidator.class)
 @Getter
 @NoArgsConstructor
 public class Player {
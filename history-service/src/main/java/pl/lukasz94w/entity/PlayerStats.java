@@ -0,0 +1,79 @@
+package pl.lukasz94w.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import pl.lukasz94w.ranking.EloRating;
+
+// Read model of the results of the player, updated with every saved game (see PlayerStatsService), so it's served by
+// a single primary key read instead of aggregating the whole history. Sums are kept instead of the averages.
+@Entity
+@Table(name = "player_stats")
+@Getter
+@NoArgsConstructor
+public class PlayerStats {
+
+    @Id
+    private Long playerId;
+
+    // null until persisted, so the new stats are inserted without being looked up first
+    @Version
+    private Long version;
+
+    // default of the column is for the rows created before the ratings
+    @ColumnDefault("" + EloRating.INITIAL_RATING)
+    private int rating = EloRating.INITIAL_RATING;
+
+    private int wins;
+
+    private int losses;
+
+    private int draws;
+
+    // positive for the wins in a row, negative for the losses, draw resets it
+    private int currentStreak;
+
+    private int longestWinStreak;
+
+    // of the won games only
+    private long winningMovementsSum;
+
+    // in ms
+    private long gamesDurationSum;
+
+    public PlayerStats(Long playerId) {
+        this.playerId = playerId;
+    }
+
+    public void recordWin(int numberOfWinningMovements, long gameDuration) {
+        wins++;
+        winningMovementsSum += numberOfWinningMovements;
+        currentStreak = currentStreak > 0 ? currentStreak + 1 : 1;
+        longestWinStreak = Math.max(longestWinStreak, currentStreak);
+        gamesDurationSum += gameDuration;
+    }
+
+    public void recordLoss(long gameDuration) {
+        losses++;
+        currentStreak = currentStreak < 0 ? currentStreak - 1 : -1;
+        gamesDurationSum += gameDuration;
+    }
+
+    public void recordDraw(long gameDuration) {
+        draws++;
+        currentStreak = 0;
+        gamesDurationSum += gameDuration;
+    }
+
+    public void changeRating(int ratingChange) {
+        rating += ratingChange;
+    }
+
+    public int getGamesPlayed() {
+        return wins + losses + draws;
+    }
+}
@@ -1,5 +1,6 @@
 package pl.lukasz94w.exception;
 
+import jakarta.validation.ConstraintViolationException;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +21,13 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(gameException.getMessage(), HttpStatus.PRECONDITION_FAILED);
     }
 
+    // invalid elements of the validated collections (the other invalid bodies are handled by the superclass)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<String> handleConstraintViolationException(ConstraintViolationException constraintViolationException) {
+        logger.error("Validation failed, reason: " + constraintViolationException.getMessage());
+        return new ResponseEntity<>(constraintViolationException.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> defaultExceptionHandler(Exception exception) {
         logger.error("Exception occurred, stacktrace: " + ExceptionUtils.getStackTrace(exception));
@@ -0,0 +1,53 @@
+package pl.lukasz94w.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+// Only the sampled requests are wrapped (and their bodies copied), the record is handed over to AuditLog after the
+// request is processed, so it carries the status and the duration as well.
+@Order(value = Ordered.HIGHEST_PRECEDENCE)
+@Component
+@WebFilter(filterName = "AuditFilter")
+public class AuditFilter extends OncePerRequestFilter {
+
+    private final AuditLog auditLog;
+
+    public AuditFilter(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!auditLog.isSampled(request.getServletPath())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Instant timestamp = Instant.now();
+        long startTime = System.nanoTime();
+        CachedHttpServletRequest cachedHttpServletRequest = new CachedHttpServletRequest(request);
+        try {
+            filterChain.doFilter(cachedHttpServletRequest, response);
+        } finally {
+            long durationMicros = (System.nanoTime() - startTime) / 1000;
+            auditLog.add(new AuditRecord(timestamp, request.getMethod(), request.getServletPath(),
+                    request.getHeader("userName"), response.getStatus(), durationMicros, cachedHttpServletRequest.getCachedPayload()));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !auditLog.isAudited(request.getServletPath());
+    }
+}
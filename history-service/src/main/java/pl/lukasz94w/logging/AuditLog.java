@@ -0,0 +1,142 @@
+package pl.lukasz94w.logging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import pl.lukasz94w.configuration.AuditConfig;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Audit records are only put into the bounded ring buffer by the request threads (never blocking them, the records
+// which don't fit are dropped and counted) and the writer thread drains it to the file in batches, flushed once per
+// batch. Serialization of the records (and decoding of their bodies) happens on the writer thread as well.
+@Component
+public class AuditLog {
+
+    private final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private final AuditConfig config;
+
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<AuditRecord> ringBuffer;
+
+    private final LongAdder writtenRecords = new LongAdder();
+
+    private final LongAdder droppedRecords = new LongAdder();
+
+    private final Thread writerThread;
+
+    private volatile boolean running;
+
+    public AuditLog(AuditConfig config, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        ringBuffer = new ArrayBlockingQueue<>(config.capacity);
+
+        FunctionCounter.builder("audit.records.written", writtenRecords, LongAdder::sum)
+                .description("Audit records written to the file")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("audit.records.dropped", droppedRecords, LongAdder::sum)
+                .description("Audit records dropped because the buffer was full")
+                .register(meterRegistry);
+
+        Gauge.builder("audit.records.buffered", ringBuffer, BlockingQueue::size)
+                .description("Audit records waiting for the writer")
+                .register(meterRegistry);
+
+        if (config.enabled) {
+            running = true;
+            writerThread = Thread.ofPlatform().name("audit-log-writer").start(this::write);
+        } else {
+            writerThread = null;
+        }
+    }
+
+    public boolean isAudited(String path) {
+        return config.enabled && config.samplingRates.containsKey(path);
+    }
+
+    public boolean isSampled(String path) {
+        double samplingRate = config.samplingRates.getOrDefault(path, 0.0);
+        return samplingRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < samplingRate;
+    }
+
+    public void add(AuditRecord auditRecord) {
+        if (!ringBuffer.offer(auditRecord)) {
+            droppedRecords.increment();
+        }
+    }
+
+    // records added till now are still written
+    @PreDestroy
+    public void stop() {
+        if (writerThread == null) {
+            return;
+        }
+
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write() {
+        List<AuditRecord> batch = new ArrayList<>();
+        Path file = Path.of(config.file);
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                while (running) {
+                    AuditRecord auditRecord = ringBuffer.poll(1, TimeUnit.SECONDS);
+                    if (auditRecord != null) {
+                        batch.add(auditRecord);
+                        ringBuffer.drainTo(batch);
+                        append(writer, batch);
+                        batch.clear();
+                    }
+                }
+
+                ringBuffer.drainTo(batch);
+                append(writer, batch);
+            }
+        } catch (InterruptedException e) {
+            logger.info("Audit log writer interrupted");
+        } catch (Exception e) {
+            logger.error("Exception in audit log writer, auditing stopped: {}", ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    private void append(BufferedWriter writer, List<AuditRecord> batch) throws IOException {
+        for (AuditRecord auditRecord : batch) {
+            writer.write(objectMapper.writeValueAsString(auditRecord));
+            writer.newLine();
+        }
+        writer.flush();
+        writtenRecords.add(batch.size());
+    }
+}
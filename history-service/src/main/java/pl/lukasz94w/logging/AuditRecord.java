@@ -0,0 +1,34 @@
+package pl.lukasz94w.logging;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+@AllArgsConstructor
+@Getter
+public class AuditRecord {
+
+    private final Instant timestamp;
+
+    private final String method;
+
+    private final String path;
+
+    // coming from api-gateway-service, null for the internal requests (i.e. of game-server-core)
+    private final String userName;
+
+    private final int status;
+
+    private final long durationMicros;
+
+    @Getter(AccessLevel.NONE)
+    private final byte[] body;
+
+    // decoded only when serialized, by the writer thread
+    public String getBody() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -3,9 +3,10 @@ package pl.lukasz94w.logging;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
-import org.springframework.util.StreamUtils;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 public class CachedHttpServletRequest extends HttpServletRequestWrapper {
 
@@ -13,8 +14,7 @@ public class CachedHttpServletRequest extends HttpServletRequestWrapper {
 
     public CachedHttpServletRequest(HttpServletRequest request) throws IOException {
         super(request);
-        InputStream requestInputStream = request.getInputStream();
-        this.cachedPayload = StreamUtils.copyToByteArray(requestInputStream);
+        this.cachedPayload = request.getInputStream().readAllBytes();
     }
 
     @Override
@@ -23,8 +23,14 @@ public class CachedHttpServletRequest extends HttpServletRequestWrapper {
     }
 
     @Override
-    public BufferedReader getReader() {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(this.cachedPayload);
-        return new BufferedReader(new InputStreamReader(byteArrayInputStream));
+    public BufferedReader getReader() throws UnsupportedEncodingException {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(this.cachedPayload), charset));
+    }
+
+    // shared, not copied
+    public byte[] getCachedPayload() {
+        return cachedPayload;
     }
 }
@@ -2,30 +2,24 @@ package pl.lukasz94w.logging;
 
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.Objects;
 
+// Reads the cached body in bulk (Jackson reads it in chunks), without the synchronization of ByteArrayInputStream.
 public class CachedServletInputStream extends ServletInputStream {
 
-    private final static Logger logger = LoggerFactory.getLogger(CachedServletInputStream.class);
-    private final InputStream cachedInputStream;
+    private final byte[] cachedBody;
+
+    private int position;
 
     public CachedServletInputStream(byte[] cachedBody) {
-        this.cachedInputStream = new ByteArrayInputStream(cachedBody);
+        this.cachedBody = cachedBody;
     }
 
     @Override
     public boolean isFinished() {
-        try {
-            return cachedInputStream.available() == 0;
-        } catch (IOException exp) {
-            logger.error(exp.getMessage());
-        }
-        return false;
+        return position == cachedBody.length;
     }
 
     @Override
@@ -33,13 +27,40 @@ public class CachedServletInputStream extends ServletInputStream {
         return true;
     }
 
+    // whole body is already cached, so it's available at once
     @Override
     public void setReadListener(ReadListener readListener) {
-        throw new UnsupportedOperationException();
+        try {
+            readListener.onDataAvailable();
+            readListener.onAllDataRead();
+        } catch (IOException e) {
+            readListener.onError(e);
+        }
+    }
+
+    @Override
+    public int read() {
+        return isFinished() ? -1 : cachedBody[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        if (length == 0) {
+            return 0;
+        }
+        if (isFinished()) {
+            return -1;
+        }
+
+        int count = Math.min(length, cachedBody.length - position);
+        System.arraycopy(cachedBody, position, buffer, offset, count);
+        position += count;
+        return count;
     }
 
     @Override
-    public int read() throws IOException {
-        return cachedInputStream.read();
+    public int available() {
+        return cachedBody.length - position;
     }
 }
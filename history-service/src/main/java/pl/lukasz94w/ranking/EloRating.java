@@ -0,0 +1,19 @@
+package pl.lukasz94w.ranking;
+
+// Elo rating system with the constant K factor: the winner takes from the loser as many points as the result was
+// unexpected (for the equally rated players it's half of K, for a draw of them nothing).
+public class EloRating {
+
+    public static final int INITIAL_RATING = 1200;
+
+    private static final int K_FACTOR = 32;
+
+    private EloRating() {
+    }
+
+    // score is 1 for the win, 0.5 for the draw and 0 for the loss, the opponent's change is the negation
+    public static int ratingChange(int rating, int opponentRating, double score) {
+        double expectedScore = 1 / (1 + Math.pow(10, (opponentRating - rating) / 400.0));
+        return (int) Math.round(K_FACTOR * (score - expectedScore));
+    }
+}
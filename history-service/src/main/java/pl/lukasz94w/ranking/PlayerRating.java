@@ -0,0 +1,4 @@
+package pl.lukasz94w.ranking;
+
+public record PlayerRating(Long playerId, String playerName, int rating, int gamesPlayed) {
+}
@@ -0,0 +1,99 @@
+package pl.lukasz94w.ranking;
+
+import java.util.*;
+
+// Order statistics of the players by the rating. Fenwick tree counts the players in every rating (bucket per point),
+// so the number of players rated above X and the rating of the k-th best player are found in O(log MAX_RATING).
+// Players of the same rating share the rank (1, 2, 2, 4) and are listed by their ids. Not thread safe.
+public class RatingIndex {
+
+    // ratings are clamped to it, the size of the tree is then a power of two (for the descent of findKthLowest)
+    public static final int MAX_RATING = 4095;
+
+    // 1-based, players rated r are counted at r + 1
+    private final int[] tree = new int[MAX_RATING + 2];
+
+    private final Map<Long, Integer> ratingsByPlayerId = new HashMap<>();
+
+    private final Map<Integer, TreeSet<Long>> playerIdsByRating = new HashMap<>();
+
+    public record RankedPlayer(long playerId, int rank, int rating) {
+    }
+
+    public void put(long playerId, int rating) {
+        int clampedRating = Math.max(0, Math.min(MAX_RATING, rating));
+        Integer previousRating = ratingsByPlayerId.put(playerId, clampedRating);
+        if (previousRating != null) {
+            if (previousRating == clampedRating) {
+                return;
+            }
+            add(previousRating, -1);
+            TreeSet<Long> previousBucket = playerIdsByRating.get(previousRating);
+            previousBucket.remove(playerId);
+            if (previousBucket.isEmpty()) {
+                playerIdsByRating.remove(previousRating);
+            }
+        }
+
+        add(clampedRating, 1);
+        playerIdsByRating.computeIfAbsent(clampedRating, key -> new TreeSet<>()).add(playerId);
+    }
+
+    public Optional<RankedPlayer> find(long playerId) {
+        Integer rating = ratingsByPlayerId.get(playerId);
+        return rating == null ? Optional.empty() : Optional.of(new RankedPlayer(playerId, rankOf(rating), rating));
+    }
+
+    // every step jumps to the next occupied rating, so it takes O(limit * log MAX_RATING)
+    public List<RankedPlayer> top(int limit) {
+        List<RankedPlayer> topPlayers = new ArrayList<>(Math.min(limit, size()));
+        int playersAbove = 0;
+        while (topPlayers.size() < limit && playersAbove < size()) {
+            int rating = findKthLowest(size() - playersAbove);
+            TreeSet<Long> bucket = playerIdsByRating.get(rating);
+            for (Long playerId : bucket) {
+                if (topPlayers.size() == limit) {
+                    break;
+                }
+                topPlayers.add(new RankedPlayer(playerId, playersAbove + 1, rating));
+            }
+            playersAbove += bucket.size();
+        }
+        return topPlayers;
+    }
+
+    public int size() {
+        return ratingsByPlayerId.size();
+    }
+
+    private int rankOf(int rating) {
+        return size() - countUpTo(rating) + 1;
+    }
+
+    private void add(int rating, int delta) {
+        for (int i = rating + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // players rated at most the given rating
+    private int countUpTo(int rating) {
+        int count = 0;
+        for (int i = rating + 1; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    // lowest rating at which there are at least k players rated the same or lower
+    private int findKthLowest(int k) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            if (position + step < tree.length && tree[position + step] < k) {
+                position += step;
+                k -= tree[position];
+            }
+        }
+        return position; // tree index position + 1 holds the rating equal to position
+    }
+}
@@ -0,0 +1,11 @@
+package pl.lukasz94w.ranking;
+
+import java.util.Map;
+
+// published with the saved games, current ratings (not the changes) of their players
+public record RatingsChangedEvent(Map<Long, Rating> ratingsByPlayerId) {
+
+    // games played by the player so far version the rating, the listeners of the events are not ordered
+    public record Rating(int rating, int gamesPlayed) {
+    }
+}
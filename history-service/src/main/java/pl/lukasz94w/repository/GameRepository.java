@@ -1,14 +1,36 @@
 package pl.lukasz94w.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import pl.lukasz94w.entity.Game;
-import pl.lukasz94w.entity.Player;
+import pl.lukasz94w.response.GameDto;
 
-import java.util.Collection;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface GameRepository extends JpaRepository<Game, Long> {
 
-    Collection<Game> findGamesByFirstPlayerOrSecondPlayer(Player firstPlayer, Player secondPlayer);
+    // Pages of the games (newest first) following the (gameEndedUTC, id) of the last game of the previous page, projected
+    // right into the DTOs with the names joined. There's one query per the column of the player, so each of them reads
+    // just the page from its composite index (see Game), instead of sorting all the games matched by OR of the two.
+    @Query("SELECT new pl.lukasz94w.response.GameDto(g.id, g.firstPlayer.name, g.secondPlayer.name, COALESCE(w.name, ''), g.gameStartedUTC, g.gameEndedUTC, g.numberOfWinningMovements) " +
+            "FROM Game g LEFT JOIN g.winnerPlayer w " +
+            "WHERE g.firstPlayer.id = :playerId AND (g.gameEndedUTC < :endedBefore OR (g.gameEndedUTC = :endedBefore AND g.id < :beforeId)) " +
+            "ORDER BY g.gameEndedUTC DESC, g.id DESC")
+    List<GameDto> findPageOfFirstPlayer(@Param("playerId") Long playerId, @Param("endedBefore") ZonedDateTime endedBefore, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("SELECT new pl.lukasz94w.response.GameDto(g.id, g.firstPlayer.name, g.secondPlayer.name, COALESCE(w.name, ''), g.gameStartedUTC, g.gameEndedUTC, g.numberOfWinningMovements) " +
+            "FROM Game g LEFT JOIN g.winnerPlayer w " +
+            "WHERE g.secondPlayer.id = :playerId AND (g.gameEndedUTC < :endedBefore OR (g.gameEndedUTC = :endedBefore AND g.id < :beforeId)) " +
+            "ORDER BY g.gameEndedUTC DESC, g.id DESC")
+    List<GameDto> findPageOfSecondPlayer(@Param("playerId") Long playerId, @Param("endedBefore") ZonedDateTime endedBefore, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    // only the packed moves column of the single game, and only if the player took part in it
+    @Query("SELECT g.moveLog FROM Game g WHERE g.id = :gameId AND (g.firstPlayer.name = :playerName OR g.secondPlayer.name = :playerName)")
+    Optional<byte[]> findMoveLog(@Param("gameId") Long gameId, @Param("playerName") String playerName);
 }
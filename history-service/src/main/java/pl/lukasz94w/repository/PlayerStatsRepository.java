@@ -0,0 +1,25 @@
+package pl.lukasz94w.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pl.lukasz94w.entity.PlayerStats;
+import pl.lukasz94w.ranking.PlayerRating;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlayerStatsRepository extends JpaRepository<PlayerStats, Long> {
+
+    // locked in the order of the ids, so the concurrently saved batches with the same players can't deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PlayerStats s WHERE s.playerId IN :playerIds ORDER BY s.playerId")
+    List<PlayerStats> findAllForUpdate(@Param("playerIds") Collection<Long> playerIds);
+
+    @Query("SELECT new pl.lukasz94w.ranking.PlayerRating(s.playerId, p.name, s.rating, s.wins + s.losses + s.draws) FROM PlayerStats s JOIN Player p ON p.id = s.playerId")
+    List<PlayerRating> findAllRatings();
+}
@@ -1,9 +1,10 @@
 package pl.lukasz94w.request;
 
+import jakarta.validation.constraints.*;
 import lombok.Getter;
 import org.springframework.format.annotation.DateTimeFormat;
+import pl.lukasz94w.entity.Game;
 
-import javax.validation.constraints.*;
 import java.time.ZonedDateTime;
 
 @Getter
@@ -17,19 +18,27 @@ public class FinishedGameData {
     @Size(max = 100)
     private String secondPlayerName;
 
-    @NotBlank
+    // empty for a draw
+    @NotNull
     @Size(max = 100)
     private String winnerName;
 
-    @Past
+    // not in the future is checked by GameService, allowing for the clock skew of game-server-core
+    @NotNull
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     private ZonedDateTime gameStartedUTC;
 
-    @Past
+    @NotNull
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
     private ZonedDateTime gameEndedUTC;
 
-    @Positive
-    @Max(value = 5)
+    // zero for a draw
+    @NotNull
+    @PositiveOrZero
+    @Max(value = 113) // first player on the biggest (15x15 gomoku) board
     private Integer numberOfWinningMovements;
+
+    // packed moves of the game (see MoveLogReader), sent as base64, missing for the games of older game servers
+    @Size(max = Game.MAX_MOVE_LOG_LENGTH)
+    private byte[] moveLog;
 }
@@ -9,6 +9,8 @@ import java.time.ZonedDateTime;
 @Getter
 public class GameDto {
 
+    private Long id;
+
     private String firstPlayerName;
 
     private String secondPlayerName;
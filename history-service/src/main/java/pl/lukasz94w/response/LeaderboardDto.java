@@ -0,0 +1,16 @@
+package pl.lukasz94w.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+public class LeaderboardDto {
+
+    private List<RankedPlayerDto> topPlayers;
+
+    // the requesting player, null until the first game
+    private RankedPlayerDto player;
+}
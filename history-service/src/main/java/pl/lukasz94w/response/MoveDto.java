@@ -0,0 +1,17 @@
+package pl.lukasz94w.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class MoveDto {
+
+    private Integer squareNumber;
+
+    // 1 for the first player, 2 for the second one
+    private Integer player;
+
+    // in ms, since the previous move or the start of the game
+    private Long timeSinceLastMove;
+}
@@ -0,0 +1,40 @@
+package pl.lukasz94w.response;
+
+import pl.lukasz94w.exception.GameException;
+
+// Reads the moves packed by game-server-core one by one. Every move is the square number (unsigned byte) followed by
+// the varint (7 bits per byte, least significant group first, high bit set if more bytes follow) of the time since
+// the previous move in ms, shifted left by one with the lowest bit telling the player: 0 for the first one, 1 for
+// the second one.
+public class MoveLogReader {
+
+    private final byte[] moveLog;
+
+    private int position;
+
+    public MoveLogReader(byte[] moveLog) {
+        this.moveLog = moveLog;
+    }
+
+    public boolean hasNext() {
+        return position < moveLog.length;
+    }
+
+    public MoveDto next() {
+        int squareNumber = moveLog[position++] & 0xFF;
+
+        long value = 0;
+        int shift = 0;
+        byte encodedByte;
+        do {
+            if (position >= moveLog.length || shift > 56) {
+                throw new GameException("Malformed move log at byte " + position);
+            }
+            encodedByte = moveLog[position++];
+            value |= (long) (encodedByte & 0x7F) << shift;
+            shift += 7;
+        } while ((encodedByte & 0x80) != 0);
+
+        return new MoveDto(squareNumber, (int) (value & 1) + 1, value >>> 1);
+    }
+}
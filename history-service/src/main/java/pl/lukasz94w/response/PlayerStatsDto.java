@@ -0,0 +1,32 @@
+package pl.lukasz94w.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class PlayerStatsDto {
+
+    private String playerName;
+
+    private Integer rating;
+
+    private Integer gamesPlayed;
+
+    private Integer wins;
+
+    private Integer losses;
+
+    private Integer draws;
+
+    // positive for the wins in a row, negative for the losses
+    private Integer currentStreak;
+
+    private Integer longestWinStreak;
+
+    // null if there are no won games
+    private Double averageWinningMovements;
+
+    // in ms, null if there are no games
+    private Long averageGameDuration;
+}
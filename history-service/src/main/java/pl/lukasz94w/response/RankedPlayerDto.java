@@ -0,0 +1,16 @@
+package pl.lukasz94w.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class RankedPlayerDto {
+
+    // players of the same rating share the rank
+    private Integer rank;
+
+    private String playerName;
+
+    private Integer rating;
+}
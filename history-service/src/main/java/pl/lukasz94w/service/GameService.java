@@ -1,65 +1,159 @@
 package pl.lukasz94w.service;
 
 import jakarta.annotation.Nullable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import pl.lukasz94w.entity.Game;
 import pl.lukasz94w.entity.Player;
 import pl.lukasz94w.exception.GameException;
 import pl.lukasz94w.repository.GameRepository;
-import pl.lukasz94w.repository.PlayerRepository;
 import pl.lukasz94w.request.FinishedGameData;
 import pl.lukasz94w.response.GameDto;
-import pl.lukasz94w.response.MapperDto;
+import pl.lukasz94w.response.MoveLogReader;
 
+import java.time.Duration;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.Collection;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class GameService {
 
+    // twice the batch of game-server-core outbox, keeps the transaction and its persistence context bounded
+    public static final int MAX_BATCH_SIZE = 200;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // games are posted as soon as they end, so the clock of game-server-core being ahead mustn't reject them
+    private static final Duration CLOCK_SKEW_ALLOWANCE = Duration.ofMinutes(5);
+
+    // cursor of the first page, before every saved game
+    private static final ZonedDateTime NEWEST_GAME_ENDED = ZonedDateTime.of(9999, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
     private final GameRepository gameRepository;
-    private final PlayerRepository playerRepository;
-    private final MapperDto mapperDto;
+    private final PlayerResolver playerResolver;
+    private final PlayerStatsService playerStatsService;
 
-    public GameService(GameRepository gameRepository, PlayerRepository playerRepository, MapperDto mapperDto) {
+    public GameService(GameRepository gameRepository, PlayerResolver playerResolver, PlayerStatsService playerStatsService) {
         this.gameRepository = gameRepository;
-        this.playerRepository = playerRepository;
-        this.mapperDto = mapperDto;
+        this.playerResolver = playerResolver;
+        this.playerStatsService = playerStatsService;
     }
 
+    @Transactional
     public void save(FinishedGameData data) {
+        saveAll(List.of(data));
+    }
+
+    // Whole batch is saved in one transaction (together with the stats of the players), single invalid game rejects the
+    // batch. All the games are validated before anything is read (every invalid one is reported), the players of all of
+    // them are resolved by the cache (and a single query for the ones not cached) and the games are inserted in JDBC
+    // batches (hibernate.jdbc.batch_size), which the sequence generated ids allow.
+    @Transactional
+    public void saveAll(List<FinishedGameData> data) {
+        validateBatchSize(data);
+        validateGames(data);
+
+        Map<String, Player> playersByName = findPlayers(data);
+        List<Game> games = gameRepository.saveAll(data.stream().map(gameData -> createGame(gameData, playersByName)).toList());
+        playerStatsService.record(games);
+    }
+
+    private Game createGame(FinishedGameData data, Map<String, Player> playersByName) {
         String firstPlayerName = data.getFirstPlayerName();
         String secondPlayerName = data.getSecondPlayerName();
-        String winnerName = data.getWinnerName();
-        ZonedDateTime gameStartedUTC = data.getGameStartedUTC();
-        ZonedDateTime gameEndedUTC = data.getGameEndedUTC();
-        Integer numberOfWinningMovements = data.getNumberOfWinningMovements();
+        Player firstPlayer = playersByName.get(firstPlayerName);
+        Player secondPlayer = playersByName.get(secondPlayerName);
+        Player winner = getWinner(data.getWinnerName(), firstPlayerName, firstPlayer, secondPlayerName, secondPlayer);
 
-        // it could also be done by custom ConstraintValidator (on pre-processing level of the incoming request)
-        validateNamesUniqueness(firstPlayerName, secondPlayerName);
-        validateWinnerName(winnerName, firstPlayerName, secondPlayerName);
-        validateGameDates(gameStartedUTC, gameEndedUTC);
+        return new Game(firstPlayer, secondPlayer, winner, data.getGameStartedUTC(), data.getGameEndedUTC(), data.getNumberOfWinningMovements(), data.getMoveLog());
+    }
+
+    private void validateBatchSize(List<FinishedGameData> data) {
+        if (data.isEmpty() || data.size() > MAX_BATCH_SIZE) {
+            throw new GameException("Batch has to contain from 1 to " + MAX_BATCH_SIZE + " games, got: " + data.size());
+        }
+    }
+
+    private void validateGames(List<FinishedGameData> data) {
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < data.size(); i++) {
+            try {
+                validateGame(data.get(i));
+            } catch (GameException e) {
+                errors.add("game " + i + ": " + e.getMessage());
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            throw new GameException("Invalid games in the batch, " + String.join("; ", errors));
+        }
+    }
 
-        Player firstPlayer = playerRepository.findByName(firstPlayerName)
-                .orElseThrow(() -> new GameException("First player with name: " + firstPlayerName + ", not found"));
+    private void validateGame(FinishedGameData data) {
+        // it could also be done by custom ConstraintValidator (on pre-processing level of the incoming request)
+        validateNamesUniqueness(data.getFirstPlayerName(), data.getSecondPlayerName());
+        validateWinnerName(data.getWinnerName(), data.getFirstPlayerName(), data.getSecondPlayerName());
+        validateGameDates(data.getGameStartedUTC(), data.getGameEndedUTC());
+    }
 
-        Player secondPlayer = playerRepository.findByName(data.getSecondPlayerName())
-                .orElseThrow(() -> new GameException("Second player with name: " + secondPlayerName + ", not found"));
+    private Map<String, Player> findPlayers(List<FinishedGameData> data) {
+        Set<String> names = data.stream()
+                .flatMap(gameData -> Stream.of(gameData.getFirstPlayerName(), gameData.getSecondPlayerName()))
+                .collect(Collectors.toSet());
 
-        Player winner = getWinner(winnerName, firstPlayerName, firstPlayer, secondPlayerName, secondPlayer);
+        Map<String, Player> playersByName = playerResolver.resolve(names);
 
-        Game game = new Game(firstPlayer, secondPlayer, winner, gameStartedUTC, gameEndedUTC, numberOfWinningMovements);
-        gameRepository.save(game);
+        if (playersByName.size() < names.size()) {
+            Set<String> missingNames = new TreeSet<>(names);
+            missingNames.removeAll(playersByName.keySet());
+            throw new GameException("Players with names: " + missingNames + ", not found");
+        }
+        return playersByName;
     }
 
-    public Collection<GameDto> findGamesForUser(String userName) {
-        Player player = playerRepository.getPlayerByName(userName);
-        Collection<Game> games = gameRepository.findGamesByFirstPlayerOrSecondPlayer(player, player);
+    // Page of the games of the player, newest first. Next page starts after the gameEnded and id of the last game of the
+    // previous one (no cursor for the first page). Both queries return at most a page, their merge is the page.
+    public List<GameDto> findGamesForUser(String userName, @Nullable ZonedDateTime endedBefore, @Nullable Long beforeId, int pageSize) {
+        validatePageSize(pageSize);
+        validateCursor(endedBefore, beforeId);
+        Optional<Long> playerId = playerResolver.resolveId(userName);
+        if (playerId.isEmpty()) {
+            return List.of();
+        }
+
+        ZonedDateTime cursorGameEnded = endedBefore == null ? NEWEST_GAME_ENDED : endedBefore;
+        Long cursorId = beforeId == null ? Long.MAX_VALUE : beforeId;
+        Pageable page = PageRequest.ofSize(pageSize);
+        List<GameDto> games = new ArrayList<>(gameRepository.findPageOfFirstPlayer(playerId.get(), cursorGameEnded, cursorId, page));
+        games.addAll(gameRepository.findPageOfSecondPlayer(playerId.get(), cursorGameEnded, cursorId, page));
 
         return games.stream()
-                .map(mapperDto::mapToGameDto)
-                .collect(Collectors.toList());
+                .sorted(Comparator.comparing(GameDto::getGameEnded).thenComparing(GameDto::getId).reversed())
+                .limit(pageSize)
+                .toList();
+    }
+
+    public MoveLogReader readMoves(Long gameId, String userName) {
+        byte[] moveLog = gameRepository.findMoveLog(gameId, userName)
+                .orElseThrow(() -> new GameException("Moves of game: " + gameId + " not found for player: " + userName));
+        return new MoveLogReader(moveLog);
+    }
+
+    private void validatePageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new GameException("Page size has to be from 1 to " + MAX_PAGE_SIZE + ", got: " + pageSize);
+        }
+    }
+
+    private void validateCursor(@Nullable ZonedDateTime endedBefore, @Nullable Long beforeId) {
+        if ((endedBefore == null) != (beforeId == null)) {
+            throw new GameException("Cursor of the page needs both the end date and the id of the last game");
+        }
     }
 
     private void validateWinnerName(String winnerName, String firstPlayerName, String secondPlayerName) {
@@ -78,6 +172,9 @@ public class GameService {
         if (gameStarted.compareTo(gameEnded) > 0) {
             throw new GameException("Game started date is later than ending time");
         }
+        if (gameEnded.isAfter(ZonedDateTime.now().plus(CLOCK_SKEW_ALLOWANCE))) {
+            throw new GameException("Game ending time is in the future");
+        }
     }
 
     @Nullable
@@ -0,0 +1,134 @@
+package pl.lukasz94w.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.lukasz94w.entity.Player;
+import pl.lukasz94w.exception.GameException;
+import pl.lukasz94w.ranking.PlayerRating;
+import pl.lukasz94w.ranking.RatingIndex;
+import pl.lukasz94w.ranking.RatingsChangedEvent;
+import pl.lukasz94w.repository.PlayerRepository;
+import pl.lukasz94w.repository.PlayerStatsRepository;
+import pl.lukasz94w.response.LeaderboardDto;
+import pl.lukasz94w.response.RankedPlayerDto;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Leaderboard served from the in-memory index of the ratings, built from player_stats at startup and updated with
+// every committed batch of games, so no request sorts the players in the database. The index reflects the games saved
+// by this instance only (and by all of them as of its startup).
+@Service
+public class LeaderboardService {
+
+    public static final int MAX_LEADERBOARD_SIZE = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private final PlayerStatsRepository playerStatsRepository;
+
+    private final PlayerRepository playerRepository;
+
+    private final PlayerResolver playerResolver;
+
+    private final RatingIndex ratingIndex = new RatingIndex();
+
+    private final Map<Long, String> playerNames = new HashMap<>();
+
+    // of the indexed ratings
+    private final Map<Long, Integer> gamesPlayedByPlayerId = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LeaderboardService(PlayerStatsRepository playerStatsRepository, PlayerRepository playerRepository, PlayerResolver playerResolver) {
+        this.playerStatsRepository = playerStatsRepository;
+        this.playerRepository = playerRepository;
+        this.playerResolver = playerResolver;
+    }
+
+    // updates committed in the meantime wait for the lock, the ones already read are skipped as not newer
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        lock.writeLock().lock();
+        try {
+            for (PlayerRating playerRating : playerStatsRepository.findAllRatings()) {
+                ratingIndex.put(playerRating.playerId(), playerRating.rating());
+                playerNames.put(playerRating.playerId(), playerRating.playerName());
+                gamesPlayedByPlayerId.put(playerRating.playerId(), playerRating.gamesPlayed());
+            }
+            logger.info("Leaderboard built from ratings of {} players", ratingIndex.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Listeners run on the committing threads, so the events of the transactions updating the same player (one after
+    // another, under the lock of player_stats) can come in any order. Rating older than the indexed one is skipped.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRatingsChanged(RatingsChangedEvent event) {
+        Map<Long, String> newPlayerNames = findNamesOfNewPlayers(event.ratingsByPlayerId().keySet());
+
+        lock.writeLock().lock();
+        try {
+            playerNames.putAll(newPlayerNames);
+            event.ratingsByPlayerId().forEach((playerId, rating) -> {
+                Integer indexedGamesPlayed = gamesPlayedByPlayerId.get(playerId);
+                if (indexedGamesPlayed == null || rating.gamesPlayed() > indexedGamesPlayed) {
+                    gamesPlayedByPlayerId.put(playerId, rating.gamesPlayed());
+                    ratingIndex.put(playerId, rating.rating());
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public LeaderboardDto findLeaderboard(String userName, int limit) {
+        if (limit < 1 || limit > MAX_LEADERBOARD_SIZE) {
+            throw new GameException("Leaderboard size has to be from 1 to " + MAX_LEADERBOARD_SIZE + ", got: " + limit);
+        }
+        Optional<Long> playerId = playerResolver.resolveId(userName);
+
+        lock.readLock().lock();
+        try {
+            List<RankedPlayerDto> topPlayers = ratingIndex.top(limit).stream()
+                    .map(this::mapToRankedPlayerDto)
+                    .toList();
+            RankedPlayerDto player = playerId.flatMap(ratingIndex::find)
+                    .map(this::mapToRankedPlayerDto)
+                    .orElse(null);
+            return new LeaderboardDto(topPlayers, player);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // names are read (outside of the lock) only for the players of their first game
+    private Map<Long, String> findNamesOfNewPlayers(Set<Long> playerIds) {
+        List<Long> newPlayerIds;
+        lock.readLock().lock();
+        try {
+            newPlayerIds = playerIds.stream().filter(playerId -> !playerNames.containsKey(playerId)).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, String> newPlayerNames = new HashMap<>();
+        if (!newPlayerIds.isEmpty()) {
+            for (Player player : playerRepository.findAllById(newPlayerIds)) {
+                newPlayerNames.put(player.getId(), player.getName());
+            }
+        }
+        return newPlayerNames;
+    }
+
+    private RankedPlayerDto mapToRankedPlayerDto(RatingIndex.RankedPlayer rankedPlayer) {
+        return new RankedPlayerDto(rankedPlayer.rank(), playerNames.get(rankedPlayer.playerId()), rankedPlayer.rating());
+    }
+}
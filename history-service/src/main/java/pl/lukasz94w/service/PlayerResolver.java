@@ -0,0 +1,71 @@
+package pl.lukasz94w.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import pl.lukasz94w.cache.PlayerIdCache;
+import pl.lukasz94w.entity.Player;
+import pl.lukasz94w.repository.PlayerRepository;
+
+import java.util.*;
+
+// Resolves the names of the players through the cache of their ids. The cached players are returned as references
+// (no query is executed for them), which is all a saved game needs for its foreign keys.
+@Service
+public class PlayerResolver {
+
+    private final Logger logger = LoggerFactory.getLogger(PlayerResolver.class);
+
+    private final PlayerRepository playerRepository;
+
+    private final PlayerIdCache playerIdCache;
+
+    public PlayerResolver(PlayerRepository playerRepository, PlayerIdCache playerIdCache) {
+        this.playerRepository = playerRepository;
+        this.playerIdCache = playerIdCache;
+    }
+
+    // players seeded by data.sql (and the others, up to the size of the cache)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<Player> players = playerRepository.findAll(PageRequest.of(0, playerIdCache.getMaxSize())).getContent();
+        players.forEach(player -> playerIdCache.put(player.getName(), player.getId()));
+        logger.info("Player cache warmed up with {} players", players.size());
+    }
+
+    // all the not cached names are read by a single query, names which are not found are missing in the result
+    public Map<String, Player> resolve(Collection<String> names) {
+        Map<String, Player> playersByName = new HashMap<>();
+        List<String> notCachedNames = new ArrayList<>();
+        for (String name : names) {
+            Optional<Long> playerId = playerIdCache.get(name);
+            if (playerId.isPresent()) {
+                playersByName.put(name, playerRepository.getReferenceById(playerId.get()));
+            } else {
+                notCachedNames.add(name);
+            }
+        }
+
+        if (!notCachedNames.isEmpty()) {
+            for (Player player : playerRepository.findByNameIn(notCachedNames)) {
+                playerIdCache.put(player.getName(), player.getId());
+                playersByName.put(player.getName(), player);
+            }
+        }
+        return playersByName;
+    }
+
+    public Optional<Long> resolveId(String name) {
+        Optional<Long> cachedId = playerIdCache.get(name);
+        if (cachedId.isPresent()) {
+            return cachedId;
+        }
+
+        Optional<Player> player = playerRepository.findByName(name);
+        player.ifPresent(foundPlayer -> playerIdCache.put(foundPlayer.getName(), foundPlayer.getId()));
+        return player.map(Player::getId);
+    }
+}
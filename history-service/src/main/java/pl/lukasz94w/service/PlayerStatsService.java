@@ -0,0 +1,94 @@
+package pl.lukasz94w.service;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.lukasz94w.entity.Game;
+import pl.lukasz94w.entity.PlayerStats;
+import pl.lukasz94w.exception.GameException;
+import pl.lukasz94w.ranking.EloRating;
+import pl.lukasz94w.ranking.RatingsChangedEvent;
+import pl.lukasz94w.repository.PlayerStatsRepository;
+import pl.lukasz94w.response.PlayerStatsDto;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class PlayerStatsService {
+
+    private final PlayerStatsRepository playerStatsRepository;
+
+    private final PlayerResolver playerResolver;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public PlayerStatsService(PlayerStatsRepository playerStatsRepository, PlayerResolver playerResolver, ApplicationEventPublisher applicationEventPublisher) {
+        this.playerStatsRepository = playerStatsRepository;
+        this.playerResolver = playerResolver;
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    // Part of the transaction saving the games, so the stats can't diverge from them. Stats of all the players of the
+    // batch are read (and locked) by one query. Games are applied in the order they ended, the streaks follow the order
+    // in which the batches are saved. Two batches creating the stats of the same new player at once fail on the primary
+    // key, the rejected one is sent again by the outbox of game-server-core. New ratings are passed to the leaderboard
+    // once the transaction commits.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Game> games) {
+        Set<Long> playerIds = games.stream()
+                .flatMap(game -> Stream.of(game.getFirstPlayer().getId(), game.getSecondPlayer().getId()))
+                .collect(Collectors.toSet());
+
+        Map<Long, PlayerStats> statsByPlayerId = new HashMap<>();
+        playerStatsRepository.findAllForUpdate(playerIds).forEach(stats -> statsByPlayerId.put(stats.getPlayerId(), stats));
+
+        games.stream()
+                .sorted(Comparator.comparing(Game::getGameEndedUTC))
+                .forEach(game -> record(game, statsByPlayerId));
+
+        playerStatsRepository.saveAll(statsByPlayerId.values());
+
+        Map<Long, RatingsChangedEvent.Rating> ratingsByPlayerId = new HashMap<>();
+        statsByPlayerId.forEach((playerId, stats) -> ratingsByPlayerId.put(playerId, new RatingsChangedEvent.Rating(stats.getRating(), stats.getGamesPlayed())));
+        applicationEventPublisher.publishEvent(new RatingsChangedEvent(ratingsByPlayerId));
+    }
+
+    public PlayerStatsDto findStats(String userName) {
+        Long playerId = playerResolver.resolveId(userName)
+                .orElseThrow(() -> new GameException("Player with name: " + userName + ", not found"));
+        PlayerStats stats = playerStatsRepository.findById(playerId).orElseGet(() -> new PlayerStats(playerId));
+
+        return new PlayerStatsDto(userName, stats.getRating(), stats.getGamesPlayed(), stats.getWins(), stats.getLosses(), stats.getDraws(), stats.getCurrentStreak(), stats.getLongestWinStreak(),
+                stats.getWins() == 0 ? null : (double) stats.getWinningMovementsSum() / stats.getWins(),
+                stats.getGamesPlayed() == 0 ? null : stats.getGamesDurationSum() / stats.getGamesPlayed());
+    }
+
+    private void record(Game game, Map<Long, PlayerStats> statsByPlayerId) {
+        PlayerStats firstPlayerStats = statsByPlayerId.computeIfAbsent(game.getFirstPlayer().getId(), PlayerStats::new);
+        PlayerStats secondPlayerStats = statsByPlayerId.computeIfAbsent(game.getSecondPlayer().getId(), PlayerStats::new);
+        long gameDuration = Duration.between(game.getGameStartedUTC(), game.getGameEndedUTC()).toMillis();
+
+        double firstPlayerScore;
+        if (game.getWinnerPlayer() == null) {
+            firstPlayerScore = 0.5;
+            firstPlayerStats.recordDraw(gameDuration);
+            secondPlayerStats.recordDraw(gameDuration);
+        } else if (game.getWinnerPlayer().getId().equals(game.getFirstPlayer().getId())) {
+            firstPlayerScore = 1;
+            firstPlayerStats.recordWin(game.getNumberOfWinningMovements(), gameDuration);
+            secondPlayerStats.recordLoss(gameDuration);
+        } else {
+            firstPlayerScore = 0;
+            secondPlayerStats.recordWin(game.getNumberOfWinningMovements(), gameDuration);
+            firstPlayerStats.recordLoss(gameDuration);
+        }
+
+        int ratingChange = EloRating.ratingChange(firstPlayerStats.getRating(), secondPlayerStats.getRating(), firstPlayerScore);
+        firstPlayerStats.changeRating(ratingChange);
+        secondPlayerStats.changeRating(-ratingChange);
+    }
+}
@@ -6,3 +6,18 @@ INSERT INTO player (name)
 SELECT 'user3' WHERE NOT EXISTS (SELECT 1 FROM player WHERE name = 'user3');
 INSERT INTO player (name)
 SELECT 'user4' WHERE NOT EXISTS (SELECT 1 FROM player WHERE name = 'user4');
+
+-- ids of the games were generated by identity before, sequence has to start above them (it's never moved back)
+SELECT COALESCE(MAX(id), 0) + 50 INTO @game_sequence_start FROM game;
+EXECUTE IMMEDIATE CONCAT('SELECT SETVAL(game_sequence, ', @game_sequence_start, ')');
+
+-- stats of the games saved before player_stats existed (without the streaks, which depend on the order of the games)
+INSERT INTO player_stats (player_id, version, wins, losses, draws, current_streak, longest_win_streak, winning_movements_sum, games_duration_sum)
+SELECT player_id, 0, SUM(won), SUM(lost), SUM(drawn), 0, 0, SUM(IF(won, number_of_winning_movements, 0)), SUM(TIMESTAMPDIFF(MICROSECOND, game_startedutc, game_endedutc) DIV 1000)
+FROM (SELECT first_player_id AS player_id, COALESCE(winner_player_id = first_player_id, 0) AS won, COALESCE(winner_player_id = second_player_id, 0) AS lost,
+             winner_player_id IS NULL AS drawn, number_of_winning_movements, game_startedutc, game_endedutc FROM game
+      UNION ALL
+      SELECT second_player_id, COALESCE(winner_player_id = second_player_id, 0), COALESCE(winner_player_id = first_player_id, 0),
+             winner_player_id IS NULL, number_of_winning_movements, game_startedutc, game_endedutc FROM game) player_games
+WHERE NOT EXISTS (SELECT 1 FROM player_stats)
+GROUP BY player_id;
@@ -0,0 +1,76 @@
+package pl.lukasz94w.logging;
+
+import jakarta.servlet.ReadListener;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedServletInputStreamTest {
+
+    @Test
+    void shouldReadCachedBodyInBulk() {
+        CachedServletInputStream inputStream = new CachedServletInputStream("[{}]".getBytes(StandardCharsets.UTF_8));
+        byte[] buffer = new byte[3];
+
+        assertEquals(3, inputStream.read(buffer, 0, 3));
+        assertEquals(1, inputStream.available());
+        assertEquals(']', inputStream.read());
+        assertTrue(inputStream.isFinished());
+        assertEquals(-1, inputStream.read(buffer, 0, 3));
+    }
+
+    @Test
+    void shouldNotifyReadListenerThatWholeBodyIsAvailable() {
+        CachedServletInputStream inputStream = new CachedServletInputStream("{}".getBytes(StandardCharsets.UTF_8));
+        List<String> events = new ArrayList<>();
+
+        inputStream.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("allDataRead");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                events.add("error");
+            }
+        });
+
+        assertEquals(List.of("{}", "allDataRead"), events);
+    }
+
+    @Test
+    void shouldPassExceptionOfReadListenerToIt() {
+        CachedServletInputStream inputStream = new CachedServletInputStream(new byte[0]);
+        List<Throwable> errors = new ArrayList<>();
+
+        inputStream.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                throw new IOException("broken");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                fail("all data read after the error");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                errors.add(throwable);
+            }
+        });
+
+        assertEquals(1, errors.size());
+    }
+}
@@ -0,0 +1,32 @@
+package pl.lukasz94w.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EloRatingTest {
+
+    @Test
+    void shouldGiveHalfOfKForWinOfEquallyRatedPlayers() {
+        assertEquals(16, EloRating.ratingChange(1200, 1200, 1));
+        assertEquals(-16, EloRating.ratingChange(1200, 1200, 0));
+        assertEquals(0, EloRating.ratingChange(1200, 1200, 0.5));
+    }
+
+    @Test
+    void shouldGiveMoreForUnexpectedResult() {
+        int underdogWin = EloRating.ratingChange(1000, 1400, 1);
+        int favouriteWin = EloRating.ratingChange(1400, 1000, 1);
+
+        assertEquals(29, underdogWin);
+        assertEquals(3, favouriteWin);
+        assertEquals(32, underdogWin + favouriteWin);
+        assertTrue(EloRating.ratingChange(1000, 1400, 0.5) > 0, "draw with the stronger opponent gains points");
+    }
+
+    @Test
+    void shouldNeverExceedK() {
+        assertEquals(32, EloRating.ratingChange(0, 4095, 1));
+        assertEquals(-32, EloRating.ratingChange(4095, 0, 0));
+    }
+}
@@ -0,0 +1,77 @@
+package pl.lukasz94w.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingIndexTest {
+
+    @Test
+    void shouldShareRankOfEqualRatingsAndListThemByIds() {
+        RatingIndex ratingIndex = new RatingIndex();
+        ratingIndex.put(4, 1300);
+        ratingIndex.put(2, 1250);
+        ratingIndex.put(1, 1250);
+        ratingIndex.put(3, 1100);
+
+        assertEquals(List.of(new RatingIndex.RankedPlayer(4, 1, 1300), new RatingIndex.RankedPlayer(1, 2, 1250),
+                new RatingIndex.RankedPlayer(2, 2, 1250), new RatingIndex.RankedPlayer(3, 4, 1100)), ratingIndex.top(10));
+        assertEquals(List.of(new RatingIndex.RankedPlayer(4, 1, 1300), new RatingIndex.RankedPlayer(1, 2, 1250)), ratingIndex.top(2));
+        assertEquals(new RatingIndex.RankedPlayer(2, 2, 1250), ratingIndex.find(2).orElseThrow());
+        assertEquals(4, ratingIndex.find(3).orElseThrow().rank());
+        assertTrue(ratingIndex.find(5).isEmpty());
+    }
+
+    @Test
+    void shouldMovePlayerWhenRatingChanges() {
+        RatingIndex ratingIndex = new RatingIndex();
+        ratingIndex.put(1, 1200);
+        ratingIndex.put(2, 1210);
+        ratingIndex.put(1, 1220);
+        ratingIndex.put(1, 1220);
+
+        assertEquals(2, ratingIndex.size());
+        assertEquals(List.of(new RatingIndex.RankedPlayer(1, 1, 1220), new RatingIndex.RankedPlayer(2, 2, 1210)), ratingIndex.top(5));
+    }
+
+    @Test
+    void shouldClampRatingsToTheirRange() {
+        RatingIndex ratingIndex = new RatingIndex();
+        ratingIndex.put(1, -50);
+        ratingIndex.put(2, RatingIndex.MAX_RATING + 100);
+
+        assertEquals(new RatingIndex.RankedPlayer(2, 1, RatingIndex.MAX_RATING), ratingIndex.find(2).orElseThrow());
+        assertEquals(new RatingIndex.RankedPlayer(1, 2, 0), ratingIndex.find(1).orElseThrow());
+    }
+
+    @Test
+    void shouldRankAsSortingOfAllRatings() {
+        RatingIndex ratingIndex = new RatingIndex();
+        Random random = new Random(42);
+        List<long[]> ratings = new ArrayList<>();
+        for (long playerId = 0; playerId < 500; playerId++) {
+            int rating = 1000 + random.nextInt(400);
+            ratingIndex.put(playerId, rating);
+            ratings.add(new long[]{playerId, rating});
+        }
+        ratings.sort(Comparator.<long[]>comparingLong(rating -> -rating[1]).thenComparingLong(rating -> rating[0]));
+
+        List<RatingIndex.RankedPlayer> topPlayers = ratingIndex.top(500);
+        assertEquals(500, topPlayers.size());
+        for (int i = 0; i < ratings.size(); i++) {
+            long[] rating = ratings.get(i);
+            RatingIndex.RankedPlayer rankedPlayer = topPlayers.get(i);
+            long playersRatedHigher = ratings.stream().filter(other -> other[1] > rating[1]).count();
+
+            assertEquals(rating[0], rankedPlayer.playerId());
+            assertEquals(rating[1], rankedPlayer.rating());
+            assertEquals(playersRatedHigher + 1, rankedPlayer.rank());
+            assertEquals(rankedPlayer, ratingIndex.find(rating[0]).orElseThrow());
+        }
+    }
+}
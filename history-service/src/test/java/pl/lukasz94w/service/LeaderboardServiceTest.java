@@ -0,0 +1,38 @@
+package pl.lukasz94w.service;
+
+import org.junit.jupiter.api.Test;
+import pl.lukasz94w.ranking.PlayerRating;
+import pl.lukasz94w.ranking.RatingsChangedEvent;
+import pl.lukasz94w.repository.PlayerRepository;
+import pl.lukasz94w.repository.PlayerStatsRepository;
+import pl.lukasz94w.response.RankedPlayerDto;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeaderboardServiceTest {
+
+    private final PlayerStatsRepository playerStatsRepository = mock(PlayerStatsRepository.class);
+
+    private final LeaderboardService leaderboardService = new LeaderboardService(playerStatsRepository, mock(PlayerRepository.class), mock(PlayerResolver.class));
+
+    @Test
+    void shouldSkipRatingOlderThanTheIndexedOne() {
+        when(playerStatsRepository.findAllRatings()).thenReturn(List.of(new PlayerRating(1L, "first", 1200, 3), new PlayerRating(2L, "second", 1210, 3)));
+        leaderboardService.build();
+
+        // listener of the later transaction runs first
+        leaderboardService.onRatingsChanged(new RatingsChangedEvent(Map.of(1L, new RatingsChangedEvent.Rating(1240, 5))));
+        leaderboardService.onRatingsChanged(new RatingsChangedEvent(Map.of(1L, new RatingsChangedEvent.Rating(1220, 4))));
+        // committed before the build, read by it already
+        leaderboardService.onRatingsChanged(new RatingsChangedEvent(Map.of(2L, new RatingsChangedEvent.Rating(1190, 2))));
+
+        List<RankedPlayerDto> topPlayers = leaderboardService.findLeaderboard("first", 10).getTopPlayers();
+        assertEquals(List.of("first", "second"), topPlayers.stream().map(RankedPlayerDto::getPlayerName).toList());
+        assertEquals(List.of(1240, 1210), topPlayers.stream().map(RankedPlayerDto::getRating).toList());
+    }
+}